@@ -0,0 +1,26 @@
+package com.devs.squaremenu;
+
+import android.app.Activity;
+import android.os.Bundle;
+import android.widget.FrameLayout;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Empty window the on device benchmarks put their menus in, hardware accelerated as
+ * every app window is by default.
+ */
+public class BenchmarkActivity extends Activity {
+
+    FrameLayout content;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        content = new FrameLayout(this);
+        setContentView(content);
+    }
+}
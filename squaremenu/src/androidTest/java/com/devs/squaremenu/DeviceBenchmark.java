@@ -0,0 +1,69 @@
+package com.devs.squaremenu;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Results of the on device benchmarks, in the same one JSON object per line format as
+ * the JVM ones. Lines go to logcat under the SquareMenuBenchmark tag and to
+ * squaremenu-device.json in the external files dir of the test app.
+ */
+final class DeviceBenchmark {
+
+    private static final String TAG = "SquareMenuBenchmark";
+
+    private static PrintWriter output = null;
+
+    private DeviceBenchmark() {
+    }
+
+    /**
+     * @return the value at the given percentile of the first count samples, which get sorted
+     */
+    static long percentile(long[] samples, int count, double percentile) {
+        if(count == 0) return 0;
+        Arrays.sort(samples, 0, count);
+        int rank = (int) Math.ceil(count * percentile / 100) - 1;
+        return samples[Math.max(0, Math.min(count - 1, rank))];
+    }
+
+    static synchronized void record(String name, Object... fields) {
+        StringBuilder line = new StringBuilder("{\"benchmark\":\"").append(name).append('"');
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            line.append(",\"").append(fields[i]).append("\":");
+            Object value = fields[i + 1];
+            if(value instanceof Float || value instanceof Double)
+                line.append(String.format(Locale.US, "%.3f", ((Number) value).doubleValue()));
+            else if(value instanceof Number || value instanceof Boolean)
+                line.append(value);
+            else
+                line.append('"').append(value).append('"');
+        }
+        line.append('}');
+        Log.i(TAG, line.toString());
+        try {
+            if(output == null) {
+                Context context = InstrumentationRegistry.getTargetContext();
+                File dir = context.getExternalFilesDir(null);
+                if(dir == null) dir = context.getFilesDir();
+                output = new PrintWriter(new FileWriter(new File(dir, "squaremenu-device.json"), false), true);
+            }
+            output.println(line);
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot write benchmark results", e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.devs.squaremenu;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.ParcelFileDescriptor;
+import android.support.test.InstrumentationRegistry;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Frame times of the test app's windows from dumpsys gfxinfo framestats (API 23): for
+ * every frame, from its vsync to the GPU finishing it, whatever the render path. The
+ * platform keeps the last 120 frames, so read them after every animation.
+ */
+@TargetApi(Build.VERSION_CODES.M)
+final class FrameStats {
+
+    private static final String PROFILE_DATA = "---PROFILEDATA---";
+
+    private FrameStats() {
+    }
+
+    /**
+     * Forgets the frames recorded so far.
+     */
+    static void reset() throws IOException {
+        run("dumpsys gfxinfo " + packageName() + " reset");
+    }
+
+    /**
+     * Adds the duration of every frame whose vsync falls between from and to, both in
+     * the {@link System#nanoTime()} time base, after the given count of durations.
+     *
+     * @return the count of durations, the new ones included
+     */
+    static int read(long fromNanos, long toNanos, long[] durations, int count) throws IOException {
+        String[] lines = run("dumpsys gfxinfo " + packageName() + " framestats").split("\n");
+        boolean inData = false;
+        int flags = -1, vsync = -1, completed = -1;
+        for (String line : lines) {
+            line = line.trim();
+            if(line.equals(PROFILE_DATA)) {
+                // One section per window, each with its own header
+                inData = !inData;
+                flags = vsync = completed = -1;
+                continue;
+            }
+            if(!inData || line.isEmpty()) continue;
+            String[] columns = line.split(",");
+            if(flags < 0) {
+                for (int i = 0; i < columns.length; i++) {
+                    if(columns[i].equals("Flags")) flags = i;
+                    else if(columns[i].equals("IntendedVsync")) vsync = i;
+                    else if(columns[i].equals("FrameCompleted")) completed = i;
+                }
+                continue;
+            }
+            if(vsync < 0 || completed < 0 || columns.length <= Math.max(vsync, completed)) continue;
+            // Frames with a flag are not real frames of the window, such as the first one
+            if(Long.parseLong(columns[flags]) != 0) continue;
+            long start = Long.parseLong(columns[vsync]);
+            if(start < fromNanos || start > toNanos || count >= durations.length) continue;
+            durations[count++] = Long.parseLong(columns[completed]) - start;
+        }
+        return count;
+    }
+
+    private static String packageName() {
+        return InstrumentationRegistry.getTargetContext().getPackageName();
+    }
+
+    private static String run(String command) throws IOException {
+        ParcelFileDescriptor output = InstrumentationRegistry.getInstrumentation().getUiAutomation()
+                .executeShellCommand(command);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ParcelFileDescriptor.AutoCloseInputStream(output)));
+        try {
+            StringBuilder text = new StringBuilder();
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) text.append(line).append('\n');
+            return text.toString();
+        } finally {
+            reader.close();
+        }
+    }
+}
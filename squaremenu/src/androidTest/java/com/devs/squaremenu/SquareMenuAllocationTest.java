@@ -0,0 +1,98 @@
+package com.devs.squaremenu;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Counts the objects SquareMenu allocates while it draws, with the runtime's own
+ * allocation counter, which the JVM tests cannot reach.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SquareMenuAllocationTest {
+
+    private static final long FRAME_NANOS = 16666667L;
+
+    @Rule
+    public final ActivityTestRule<BenchmarkActivity> activityRule = new ActivityTestRule<BenchmarkActivity>(BenchmarkActivity.class);
+
+    @Test
+    public void draw_overAnOpenCloseCycle_allocatesNothing() throws Exception {
+        final int[] result = new int[2];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                BenchmarkActivity activity = activityRule.getActivity();
+                activity.content.removeAllViews();
+                SquareMenu menu = new SquareMenu(activity, null);
+                // Drawables are rasterized at once, resources would load on a background thread
+                ArrayList<SquareMenuItem> items = new ArrayList<SquareMenuItem>();
+                for (int i = 0; i < 8; i++) items.add(new SquareMenuItem(i, new ColorDrawable(Color.WHITE)));
+                menu.setMenuItems(items);
+                TestFrameGroup group = new TestFrameGroup(true);
+                group.add(menu);
+                activity.content.addView(menu);
+                int spec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+                menu.measure(spec, spec);
+                menu.layout(0, 0, menu.getMeasuredWidth(), menu.getMeasuredHeight());
+                Canvas canvas = new Canvas(Bitmap.createBitmap(menu.getWidth(), menu.getHeight(), Bitmap.Config.ARGB_8888));
+
+                // The first cycle builds the animator, the icons and the shadows
+                drawCycle(menu, group, canvas, null);
+                Debug.startAllocCounting();
+                try {
+                    drawCycle(menu, group, canvas, result);
+                } finally {
+                    Debug.stopAllocCounting();
+                }
+            }
+        });
+        // Opening and closing both move the squares for 200ms
+        assertTrue(result[1] >= 2 * 12);
+        assertEquals("objects allocated by draw over " + result[1] + " frames", 0, result[0]);
+    }
+
+    /**
+     * Opens and closes the menu one frame after the other, drawing every frame.
+     *
+     * @param result when not null, receives the objects allocated by draw and the frames drawn
+     */
+    private static void drawCycle(SquareMenu menu, TestFrameGroup group, Canvas canvas, int[] result) {
+        long frameTime = 0;
+        int allocations = 0, frames = 0;
+        for (boolean open : new boolean[]{true, false}) {
+            menu.setOpened(open, true);
+            while (group.isRunning()) {
+                group.frame(frameTime);
+                frameTime += FRAME_NANOS;
+                // Only the draw is counted, not the frame update before it
+                int before = Debug.getThreadAllocCount();
+                menu.draw(canvas);
+                allocations += Debug.getThreadAllocCount() - before;
+                frames++;
+            }
+        }
+        if(result == null) return;
+        result[0] = allocations;
+        result[1] = frames;
+    }
+}
@@ -0,0 +1,163 @@
+package com.devs.squaremenu;
+
+import android.app.Instrumentation;
+import android.os.Build;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.animation.AccelerateDecelerateInterpolator;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * On device benchmarks of what the JVM ones cannot measure: the cost of each frame of
+ * the menu clock on both frame sources of the platform, and the frame time of each
+ * render mode in a real window, from vsync to the GPU done, as the platform records it. The layers mode draws nothing per frame once the render
+ * thread runs the squares, so it has fewer frames to show.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SquareMenuDeviceBenchmark {
+
+    private static final int CYCLES = 10;
+    private static final int MAX_FRAMES = 2000;
+
+    @Rule
+    public final ActivityTestRule<BenchmarkActivity> activityRule = new ActivityTestRule<BenchmarkActivity>(BenchmarkActivity.class);
+
+    @Test
+    public void frameClock() throws Exception {
+        // Both frame sources on the same device, the Choreographer only exists from API 16
+        boolean choreographer = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN;
+        for (String source : choreographer ? new String[]{"value_animator", "choreographer"} : new String[]{"value_animator"}) {
+            for (boolean spring : new boolean[]{false, true}) {
+                frameClock(source, spring);
+            }
+        }
+    }
+
+    private void frameClock(final String source, final boolean spring) throws Exception {
+        final long[] frameTimes = new long[MAX_FRAMES];
+        final int[] frames = {0};
+        final CountDownLatch settled = new CountDownLatch(2 * CYCLES);
+        final MenuAnimator[] animator = new MenuAnimator[1];
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                animator[0] = new MenuAnimator(new MenuAnimator.Callback() {
+                    @Override
+                    public void onMenuAnimationUpdate(float progress, float iconProgress) {
+                    }
+
+                    @Override
+                    public void onMenuAnimationSettled(boolean opened) {
+                        settled.countDown();
+                        // Turn around until every cycle is played
+                        if(settled.getCount() > 0) animator[0].animateTo(!opened);
+                    }
+                }, 200, 1000, new AccelerateDecelerateInterpolator(), 500f, 0.7f);
+                animator[0].setSpringEnabled(spring);
+                // The platform frame source, timing the clock work of each frame
+                FrameDriver.Callback timed = new FrameDriver.Callback() {
+                    @Override
+                    public void onFrame(long frameTimeNanos) {
+                        long start = System.nanoTime();
+                        animator[0].onFrame(frameTimeNanos);
+                        if(frames[0] < MAX_FRAMES) frameTimes[frames[0]++] = System.nanoTime() - start;
+                    }
+                };
+                animator[0].setFrameDriver(source.equals("choreographer")
+                        ? new FrameDriver.ChoreographerDriver(timed) : new FrameDriver.AnimatorDriver(timed));
+                animator[0].animateTo(true);
+            }
+        });
+        assertTrue(settled.await(CYCLES * 5, TimeUnit.SECONDS));
+
+        int count = frames[0];
+        DeviceBenchmark.record("frameClock", "sdk", Build.VERSION.SDK_INT, "source", source,
+                "clock", spring ? "spring" : "timeline", "frames", count,
+                "medianNsPerFrame", DeviceBenchmark.percentile(frameTimes, count, 50),
+                "p90NsPerFrame", DeviceBenchmark.percentile(frameTimes, count, 90));
+    }
+
+    @Test
+    public void renderMode() throws Exception {
+        // Frame stats of the window need API 23
+        assumeTrue(Build.VERSION.SDK_INT >= Build.VERSION_CODES.M);
+        String[] names = {"software", "hardware", "layers"};
+        int[] modes = {SquareMenu.RENDER_MODE_SOFTWARE, SquareMenu.RENDER_MODE_HARDWARE, SquareMenu.RENDER_MODE_LAYERS};
+        final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        final BenchmarkActivity activity = activityRule.getActivity();
+        long frameInterval = (long) (1e9 / activity.getWindowManager().getDefaultDisplay().getRefreshRate());
+        for (int m = 0; m < modes.length; m++) {
+            final int mode = modes[m];
+            final SquareMenu[] menu = new SquareMenu[1];
+            final long[] settledAt = new long[1];
+            final Semaphore settled = new Semaphore(0);
+
+            instrumentation.runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    activity.content.removeAllViews();
+                    menu[0] = new SquareMenu(activity, null);
+                    menu[0].setRenderMode(mode);
+                    menu[0].setMetricsEnabled(true);
+                    menu[0].getMetrics().setListener(new SquareMenuMetrics.Listener() {
+                        @Override
+                        public void onAnimationMetrics(int framesRendered, int framesDropped, long touchToFirstFrameNanos) {
+                            settledAt[0] = System.nanoTime();
+                            settled.release();
+                        }
+                    });
+                    activity.content.addView(menu[0]);
+                }
+            });
+            instrumentation.waitForIdleSync();
+
+            // Only the frames from the start of each animation to its end, one animation
+            // at a time as the platform keeps a short history
+            final long[] frameTimes = new long[MAX_FRAMES];
+            final long[] startedAt = new long[1];
+            int frames = 0;
+            for (int i = 0; i < 2 * CYCLES; i++) {
+                FrameStats.reset();
+                instrumentation.runOnMainSync(new Runnable() {
+                    @Override
+                    public void run() {
+                        startedAt[0] = System.nanoTime();
+                        menu[0].setOpened(!menu[0].isOpened(), true);
+                    }
+                });
+                assertTrue(settled.tryAcquire(5, TimeUnit.SECONDS));
+                frames = FrameStats.read(startedAt[0], settledAt[0], frameTimes, frames);
+            }
+
+            // A frame longer than the refresh interval missed its vsync
+            int janky = 0;
+            for (int i = 0; i < frames; i++) {
+                if(frameTimes[i] > frameInterval) janky++;
+            }
+            DeviceBenchmark.record("renderMode", "sdk", Build.VERSION.SDK_INT, "mode", names[m],
+                    "layerType", menu[0].getLayerType(), "hardwareAccelerated", menu[0].isHardwareAccelerated(),
+                    "animations", 2 * CYCLES, "frameIntervalNs", frameInterval,
+                    "frames", frames, "jankyFrames", janky,
+                    "p50FrameNs", DeviceBenchmark.percentile(frameTimes, frames, 50),
+                    "p90FrameNs", DeviceBenchmark.percentile(frameTimes, frames, 90),
+                    "p99FrameNs", DeviceBenchmark.percentile(frameTimes, frames, 99));
+        }
+    }
+}
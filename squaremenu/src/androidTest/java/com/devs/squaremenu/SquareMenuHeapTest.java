@@ -0,0 +1,90 @@
+package com.devs.squaremenu;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.os.Build;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Heap a laid out and drawn SquareMenu retains, from the heap growth of holding many of
+ * them: once all of one color, sharing one style, and once each of its own color.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SquareMenuHeapTest {
+
+    private static final int MENUS = 200;
+    // Far above what a closed menu holds, the shadows and styles are shared
+    private static final long MAX_BYTES_PER_MENU = 64 * 1024;
+
+    @Test
+    public void retainedHeapPerMenu() throws Exception {
+        long[] sameColor = retainedPerMenu(false);
+        long[] ownColor = retainedPerMenu(true);
+        DeviceBenchmark.record("retainedHeap", "sdk", Build.VERSION.SDK_INT, "menus", MENUS,
+                "sameColorJavaBytesPerMenu", sameColor[0], "sameColorNativeBytesPerMenu", sameColor[1],
+                "ownColorJavaBytesPerMenu", ownColor[0], "ownColorNativeBytesPerMenu", ownColor[1]);
+        assertTrue(sameColor[0] > 0);
+        assertTrue("Java bytes retained per menu: " + sameColor[0], sameColor[0] < MAX_BYTES_PER_MENU);
+    }
+
+    /**
+     * @return Java and native heap bytes retained per menu
+     */
+    private static long[] retainedPerMenu(final boolean ownColor) {
+        final Context context = InstrumentationRegistry.getTargetContext();
+        final SquareMenu[] menus = new SquareMenu[MENUS];
+        final Runnable create = new Runnable() {
+            @Override
+            public void run() {
+                int spec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+                Canvas canvas = new Canvas(Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888));
+                for (int i = 0; i < MENUS; i++) {
+                    SquareMenu menu = new SquareMenu(context, null);
+                    if(ownColor) menu.setFABColor(Color.rgb(i, 255 - i, 128));
+                    menu.measure(spec, spec);
+                    menu.layout(0, 0, menu.getMeasuredWidth(), menu.getMeasuredHeight());
+                    // Drawing picks the style up
+                    menu.draw(canvas);
+                    menus[i] = menu;
+                }
+            }
+        };
+        // Once to load the classes and fill the shared caches, then measured
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(create);
+        Arrays.fill(menus, null);
+
+        long javaHeap = usedJavaHeap(), nativeHeap = Debug.getNativeHeapAllocatedSize();
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(create);
+        long[] retained = {(usedJavaHeap() - javaHeap) / MENUS, (Debug.getNativeHeapAllocatedSize() - nativeHeap) / MENUS};
+        // Held until here
+        assertNotNull(menus[MENUS - 1]);
+        Arrays.fill(menus, null);
+        return retained;
+    }
+
+    private static long usedJavaHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            runtime.gc();
+            System.runFinalization();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,56 @@
+package com.devs.squaremenu;
+
+import android.content.Context;
+import android.os.Build;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Cost of creating, measuring and laying out a SquareMenu, the first one with its
+ * class loading and then warm. Only uses what every version of the menu has, so the
+ * same class runs against older builds too, see the README. Run it alone, so the first
+ * menu of the process is the one measured.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SquareMenuInflateBenchmark {
+
+    private static final int INFLATIONS = 50;
+
+    @Test
+    public void inflate() throws Exception {
+        final Context context = InstrumentationRegistry.getTargetContext();
+        final long[] times = new long[INFLATIONS + 1];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                int spec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+                for (int i = 0; i < times.length; i++) {
+                    long start = System.nanoTime();
+                    SquareMenu menu = new SquareMenu(context, null);
+                    menu.measure(spec, spec);
+                    menu.layout(0, 0, menu.getMeasuredWidth(), menu.getMeasuredHeight());
+                    times[i] = System.nanoTime() - start;
+                }
+            }
+        });
+        // The first one also loads the classes, when no other test did before
+        long first = times[0];
+        long[] warm = new long[INFLATIONS];
+        System.arraycopy(times, 1, warm, 0, INFLATIONS);
+        // Labels the results of each build, passed as an instrumentation argument
+        String build = InstrumentationRegistry.getArguments().getString("squaremenuBuild");
+        if(build == null) build = "head";
+        DeviceBenchmark.record("inflate", "sdk", Build.VERSION.SDK_INT, "build", build, "firstNs", first,
+                "medianNs", DeviceBenchmark.percentile(warm, INFLATIONS, 50),
+                "p90Ns", DeviceBenchmark.percentile(warm, INFLATIONS, 90));
+    }
+}
@@ -0,0 +1,181 @@
+package com.devs.squaremenu;
+
+import android.app.Instrumentation;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * A menu nobody can see must stop asking for frames. Each test opens a menu on the
+ * platform frame source, takes it out of sight halfway through in one of the ways a
+ * view can go, and checks that the frame callbacks stop and the menu lands open.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SquareMenuVisibilityTest {
+
+    // Long enough that the run is still going when the hiding takes effect
+    private static final long MOVE_DURATION = 2000, ICON_DURATION = 5000;
+    private static final long TIMEOUT_MS = 2000;
+
+    private interface Action {
+        void run(BenchmarkActivity activity, SquareMenu menu);
+    }
+
+    private interface Condition {
+        boolean isMet();
+    }
+
+    @Rule
+    public final ActivityTestRule<BenchmarkActivity> activityRule = new ActivityTestRule<BenchmarkActivity>(BenchmarkActivity.class);
+
+    private final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+
+    @Test
+    public void hidingTheMenu_stopsTheFrames() throws Exception {
+        hideMidAnimation(new Action() {
+            @Override
+            public void run(BenchmarkActivity activity, SquareMenu menu) {
+                menu.setVisibility(View.GONE);
+            }
+        });
+    }
+
+    @Test
+    public void hidingAParent_stopsTheFrames() throws Exception {
+        hideMidAnimation(new Action() {
+            @Override
+            public void run(BenchmarkActivity activity, SquareMenu menu) {
+                activity.content.setVisibility(View.INVISIBLE);
+            }
+        });
+    }
+
+    @Test
+    public void detaching_stopsTheFrames() throws Exception {
+        hideMidAnimation(new Action() {
+            @Override
+            public void run(BenchmarkActivity activity, SquareMenu menu) {
+                activity.content.removeView(menu);
+            }
+        });
+    }
+
+    @Test
+    public void hidingTheWindow_stopsTheFrames() throws Exception {
+        hideMidAnimation(new Action() {
+            @Override
+            public void run(BenchmarkActivity activity, SquareMenu menu) {
+                // The window goes once the activity is stopped, a little later
+                activity.moveTaskToBack(true);
+            }
+        });
+    }
+
+    private void hideMidAnimation(final Action hide) throws Exception {
+        final BenchmarkActivity activity = activityRule.getActivity();
+        final SquareMenu[] menu = new SquareMenu[1];
+        final TestFrameGroup[] group = new TestFrameGroup[1];
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                activity.content.removeAllViews();
+                menu[0] = new SquareMenu(activity, null);
+                ArrayList<SquareMenuItem> items = new ArrayList<SquareMenuItem>();
+                for (int i = 0; i < 3; i++) items.add(new SquareMenuItem(i, new ColorDrawable(Color.WHITE)));
+                menu[0].setMenuItems(items);
+                menu[0].setAnimationDuration(MOVE_DURATION, ICON_DURATION);
+                group[0] = new TestFrameGroup(false);
+                group[0].add(menu[0]);
+                activity.content.addView(menu[0]);
+            }
+        });
+        instrumentation.waitForIdleSync();
+
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                menu[0].setOpened(true, true);
+            }
+        });
+        // A few frames in, then out of sight
+        waitUntil(new Condition() {
+            @Override
+            public boolean isMet() {
+                return group[0].frames >= 3;
+            }
+        });
+        final boolean[] runningAtHide = new boolean[1];
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                runningAtHide[0] = group[0].isRunning();
+                hide.run(activity, menu[0]);
+            }
+        });
+        assertTrue(runningAtHide[0]);
+        long hidden = SystemClock.uptimeMillis();
+        waitUntil(new Condition() {
+            @Override
+            public boolean isMet() {
+                return !group[0].isRunning();
+            }
+        });
+        // Well before the run would have ended by itself
+        assertTrue(SystemClock.uptimeMillis() - hidden < MOVE_DURATION);
+
+        final int[] frames = new int[2];
+        final SquareMenu.SavedState[] state = new SquareMenu.SavedState[1];
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                frames[0] = group[0].frames;
+            }
+        });
+        Thread.sleep(300);
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                frames[1] = group[0].frames;
+                state[0] = (SquareMenu.SavedState) menu[0].onSaveInstanceState();
+            }
+        });
+        assertEquals("frame callbacks after the menu was hidden", frames[0], frames[1]);
+        // Landed where it was heading
+        assertTrue(state[0].opened);
+        assertEquals(1f, state[0].progress, 0f);
+        assertEquals(1f, state[0].iconProgress, 0f);
+    }
+
+    private void waitUntil(final Condition condition) throws InterruptedException {
+        final boolean[] met = new boolean[1];
+        long end = SystemClock.uptimeMillis() + TIMEOUT_MS;
+        while (SystemClock.uptimeMillis() < end) {
+            instrumentation.runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    met[0] = condition.isMet();
+                }
+            });
+            if(met[0]) return;
+            Thread.sleep(10);
+        }
+        fail("Timed out after " + TIMEOUT_MS + "ms");
+    }
+}
@@ -0,0 +1,76 @@
+package com.devs.squaremenu;
+
+import java.util.ArrayList;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Group for the device tests. Counts the frame callbacks its members get, and either
+ * takes the frames from the platform or only delivers the ones the test asks for.
+ * UI thread only, like the group itself.
+ */
+class TestFrameGroup extends SquareMenuGroup {
+
+    private final boolean manual;
+    private final ArrayList<FrameDriver> drivers = new ArrayList<FrameDriver>();
+    // Frame callbacks delivered to the members so far
+    int frames = 0;
+
+    /**
+     * @param manual true to deliver frames only from {@link #frame(long)}
+     */
+    TestFrameGroup(boolean manual) {
+        this.manual = manual;
+    }
+
+    @Override
+    FrameDriver newFrameDriver(final FrameDriver.Callback callback) {
+        FrameDriver.Callback counting = new FrameDriver.Callback() {
+            @Override
+            public void onFrame(long frameTimeNanos) {
+                frames++;
+                callback.onFrame(frameTimeNanos);
+            }
+        };
+        FrameDriver driver = manual ? new ManualDriver(counting) : FrameDriver.create(counting);
+        drivers.add(driver);
+        return driver;
+    }
+
+    boolean isRunning() {
+        for (int i = 0; i < drivers.size(); i++) {
+            if(drivers.get(i).isRunning()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Delivers one frame to every running member, manual groups only.
+     */
+    void frame(long frameTimeNanos) {
+        for (int i = 0; i < drivers.size(); i++) {
+            FrameDriver driver = drivers.get(i);
+            if(driver.isRunning()) driver.callback.onFrame(frameTimeNanos);
+        }
+    }
+
+    private static final class ManualDriver extends FrameDriver {
+
+        ManualDriver(Callback callback) {
+            super(callback);
+        }
+
+        @Override
+        void start() {
+            running = true;
+        }
+
+        @Override
+        void stop() {
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.devs.squaremenu;
+
+import android.annotation.TargetApi;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Build;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Empties the shared icon and shadow caches when the system asks the app to trim memory.
+ * Registered once with the application while at least one SquareMenu is attached.
+ * Only loaded on API 14 and up, where ComponentCallbacks2 exists.
+ */
+@TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
+final class CacheTrimmer implements ComponentCallbacks2 {
+
+    private static CacheTrimmer instance = null;
+    private static int attachedMenus = 0;
+
+    private CacheTrimmer() {
+    }
+
+    static void onMenuAttached(Context context) {
+        if(attachedMenus++ > 0) return;
+        instance = new CacheTrimmer();
+        context.getApplicationContext().registerComponentCallbacks(instance);
+    }
+
+    static void onMenuDetached(Context context) {
+        if(attachedMenus == 0 || --attachedMenus > 0) return;
+        context.getApplicationContext().unregisterComponentCallbacks(instance);
+        instance = null;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        // Running low and every level from UI hidden up. Menus keep drawing the
+        // bitmaps they hold, the caches only let go of theirs
+        if(level >= TRIM_MEMORY_RUNNING_LOW) trim();
+    }
+
+    @Override
+    public void onLowMemory() {
+        trim();
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+
+    private static void trim() {
+        IconLoader.trimTo(0);
+        ShadowCache.clear();
+    }
+}
@@ -0,0 +1,118 @@
+package com.devs.squaremenu;
+
+import android.animation.ValueAnimator;
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.Choreographer;
+import android.view.animation.AnimationUtils;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Calls back once per display frame while running, with the frame time. Uses the
+ * Choreographer where there is one (API 16) and a platform ValueAnimator ticking
+ * forever on older versions, both straight from the framework.
+ */
+abstract class FrameDriver {
+
+    interface Callback {
+        /**
+         * @param frameTimeNanos time of the frame, in the {@link System#nanoTime()} time base
+         */
+        void onFrame(long frameTimeNanos);
+    }
+
+    final Callback callback;
+    boolean running = false;
+
+    FrameDriver(Callback callback) {
+        this.callback = callback;
+    }
+
+    static FrameDriver create(Callback callback) {
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN)
+            return new ChoreographerDriver(callback);
+        return new AnimatorDriver(callback);
+    }
+
+    /**
+     * Starts calling back from the next frame, does nothing while already running.
+     */
+    abstract void start();
+
+    /**
+     * Stops calling back, may be called from the callback itself.
+     */
+    abstract void stop();
+
+    boolean isRunning() {
+        return running;
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    static final class ChoreographerDriver extends FrameDriver implements Choreographer.FrameCallback {
+
+        private final Choreographer choreographer = Choreographer.getInstance();
+
+        ChoreographerDriver(Callback callback) {
+            super(callback);
+        }
+
+        @Override
+        void start() {
+            if(running) return;
+            running = true;
+            choreographer.postFrameCallback(this);
+        }
+
+        @Override
+        void stop() {
+            if(!running) return;
+            running = false;
+            choreographer.removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if(!running) return;
+            // Post before the callback, so it can stop the driver from there
+            choreographer.postFrameCallback(this);
+            callback.onFrame(frameTimeNanos);
+        }
+    }
+
+    static final class AnimatorDriver extends FrameDriver implements ValueAnimator.AnimatorUpdateListener {
+
+        private final ValueAnimator ticker;
+
+        AnimatorDriver(Callback callback) {
+            super(callback);
+            ticker = ValueAnimator.ofFloat(0f, 1f);
+            ticker.setRepeatCount(ValueAnimator.INFINITE);
+            ticker.addUpdateListener(this);
+        }
+
+        @Override
+        void start() {
+            if(running) return;
+            running = true;
+            ticker.start();
+        }
+
+        @Override
+        void stop() {
+            if(!running) return;
+            running = false;
+            ticker.cancel();
+        }
+
+        @Override
+        public void onAnimationUpdate(ValueAnimator animation) {
+            if(!running) return;
+            callback.onFrame(AnimationUtils.currentAnimationTimeMillis() * 1000000L);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.devs.squaremenu;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+
+import java.util.List;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * All menu icons of a SquareMenu rasterized once, side by side, into one bitmap.
+ * Any Drawable can be an icon; each one is drawn at its intrinsic size, never larger
+ * than a square, and is later blitted out of the atlas by its source rect.
+ */
+final class IconAtlas {
+
+    final Bitmap bitmap;
+    private final Rect[] bounds;
+
+    private IconAtlas(Bitmap bitmap, Rect[] bounds) {
+        this.bitmap = bitmap;
+        this.bounds = bounds;
+    }
+
+    /**
+     * @param icons    menu icons, null entries are left out
+     * @param cellSize size of a menu square
+     * @return the atlas, or null when there is no icon to draw
+     */
+    static IconAtlas build(Drawable[] icons, int cellSize) {
+        Rect[] bounds = new Rect[icons.length];
+        int width = 0, height = 0;
+        for (int i = 0; i < icons.length; i++) {
+            Drawable icon = icons[i];
+            if(icon == null) continue;
+            int w = icon.getIntrinsicWidth(), h = icon.getIntrinsicHeight();
+            if(w <= 0 || h <= 0) w = h = cellSize / 2;
+            int largest = Math.max(w, h);
+            if(largest > cellSize) {
+                w = w * cellSize / largest;
+                h = h * cellSize / largest;
+            }
+            bounds[i] = new Rect(width, 0, width + w, h);
+            width += w;
+            height = Math.max(height, h);
+        }
+        if(width == 0 || height == 0) return null;
+
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        Rect callerBounds = new Rect();
+        for (int i = 0; i < icons.length; i++) {
+            if(bounds[i] == null) continue;
+            // The drawable may be on screen elsewhere, put its bounds back once drawn
+            icons[i].copyBounds(callerBounds);
+            icons[i].setBounds(bounds[i]);
+            icons[i].draw(canvas);
+            icons[i].setBounds(callerBounds);
+        }
+        return new IconAtlas(bitmap, bounds);
+    }
+
+    /**
+     * Builds the atlas of menu items, taking each drawable icon as is and loading the others
+     * from their resource.
+     */
+    static IconAtlas build(List<SquareMenuItem> items, Resources res, Resources.Theme theme, int cellSize) {
+        Drawable[] icons = new Drawable[items.size()];
+        for (int i = 0; i < icons.length; i++) {
+            SquareMenuItem item = items.get(i);
+            icons[i] = item.getIcon() != null ? item.getIcon() :
+                    item.getIconResId() != 0 ? getDrawable(res, theme, item.getIconResId()) : null;
+        }
+        return build(icons, cellSize);
+    }
+
+    /**
+     * Loads a drawable resource with the theme where the platform supports it.
+     */
+    @SuppressWarnings("deprecation")
+    static Drawable getDrawable(Resources res, Resources.Theme theme, int resId) {
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP)
+            return res.getDrawable(resId, theme);
+        return res.getDrawable(resId);
+    }
+
+    /**
+     * @return source rect of the icon inside {@link #bitmap}, or null when it has no icon
+     */
+    Rect getBounds(int index) {
+        return index < bounds.length ? bounds[index] : null;
+    }
+
+    int byteCount() {
+        return bitmap.getRowBytes() * bitmap.getHeight();
+    }
+}
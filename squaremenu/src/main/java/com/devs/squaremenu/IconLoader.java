@@ -0,0 +1,195 @@
+package com.devs.squaremenu;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Builds the icon atlas of a menu off the UI thread, with bitmap icons downsampled to the
+ * square cell size first, and keeps atlases in a process wide LRU cache keyed by resource
+ * ids and size so every SquareMenu showing the same icons shares one bitmap. Menus asking
+ * for an atlas that is still being built wait for that one rather than building their own.
+ */
+final class IconLoader {
+
+    interface Callback {
+        /**
+         * Called on the UI thread. The atlas is null when none of the icons could be loaded.
+         */
+        void onIconsLoaded(String key, IconAtlas atlas);
+    }
+
+    private static final int CACHE_SIZE = (int) Math.min(Runtime.getRuntime().maxMemory() / 32, 8 * 1024 * 1024);
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "SquareMenu-IconLoader");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    });
+
+    // Access ordered, so iteration starts at the least recently used entry
+    private static final LinkedHashMap<String, IconAtlas> CACHE = new LinkedHashMap<String, IconAtlas>(16, 0.75f, true);
+    private static int cacheBytes = 0;
+    // Callbacks waiting for an atlas being built, per key. Only touched on the UI thread
+    private static final HashMap<String, ArrayList<Callback>> PENDING = new HashMap<String, ArrayList<Callback>>();
+
+    private IconLoader() {
+    }
+
+    /**
+     * @return the cache key of the given icons at the given size
+     */
+    static String key(int[] resIds, int cellSize) {
+        StringBuilder key = new StringBuilder();
+        for (int resId : resIds) key.append(resId).append(',');
+        return key.append(cellSize).toString();
+    }
+
+    /**
+     * Delivers the atlas straight away when it is cached, otherwise builds it in the background.
+     */
+    static void load(Resources res, Resources.Theme theme, int[] resIds, int cellSize, Callback callback) {
+        load(res, theme, key(resIds, cellSize), resIds, cellSize, callback);
+    }
+
+    /**
+     * Same as {@link #load(Resources, Resources.Theme, int[], int, Callback)} with the key
+     * already known, so a cache hit allocates nothing.
+     */
+    static void load(final Resources res, final Resources.Theme theme, final String key, final int[] resIds,
+                     final int cellSize, final Callback callback) {
+        IconAtlas cached = get(key);
+        if(cached != null) {
+            callback.onIconsLoaded(key, cached);
+            return;
+        }
+        ArrayList<Callback> waiting = PENDING.get(key);
+        if(waiting != null) {
+            // Already being built, share that atlas
+            waiting.add(callback);
+            return;
+        }
+        waiting = new ArrayList<Callback>();
+        waiting.add(callback);
+        PENDING.put(key, waiting);
+        final int[] ids = resIds.clone();
+        EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                // Built by an earlier task since this one was queued
+                IconAtlas atlas = get(key);
+                if(atlas == null) {
+                    atlas = buildAtlas(res, theme, ids, cellSize);
+                    if(atlas != null) put(key, atlas);
+                }
+                final IconAtlas loaded = atlas;
+                MAIN_HANDLER.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        deliver(key, loaded);
+                    }
+                });
+            }
+        });
+    }
+
+    private static void deliver(String key, IconAtlas atlas) {
+        ArrayList<Callback> waiting = PENDING.remove(key);
+        if(waiting == null) return;
+        for (int i = 0; i < waiting.size(); i++) waiting.get(i).onIconsLoaded(key, atlas);
+    }
+
+    private static IconAtlas buildAtlas(Resources res, Resources.Theme theme, int[] resIds, int cellSize) {
+        Drawable[] icons = new Drawable[resIds.length];
+        // Only the bitmaps decoded here are ours to recycle, a drawable from the
+        // resources may share its bitmap with the rest of the app
+        Bitmap[] decoded = new Bitmap[resIds.length];
+        for (int i = 0; i < resIds.length; i++) {
+            if(resIds[i] == 0) continue;
+            decoded[i] = decode(res, resIds[i], cellSize);
+            if(decoded[i] != null)
+                icons[i] = new BitmapDrawable(res, decoded[i]);
+            else
+                icons[i] = IconAtlas.getDrawable(res, theme, resIds[i]);
+        }
+        IconAtlas atlas = IconAtlas.build(icons, cellSize);
+        // The decoded bitmaps now live in the atlas
+        for (Bitmap bitmap : decoded) {
+            if(bitmap != null) bitmap.recycle();
+        }
+        return atlas;
+    }
+
+    private static Bitmap decode(Resources res, int resId, int targetSize) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeResource(res, resId, options);
+        if(options.outWidth <= 0 || options.outHeight <= 0) return null;
+
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= targetSize && options.outHeight / (sampleSize * 2) >= targetSize) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        Bitmap bitmap = BitmapFactory.decodeResource(res, resId, options);
+        if(bitmap == null) return null;
+
+        // Never larger than the square it is drawn in
+        int largest = Math.max(bitmap.getWidth(), bitmap.getHeight());
+        if(largest > targetSize) {
+            Bitmap scaled = Bitmap.createScaledBitmap(bitmap,
+                    bitmap.getWidth() * targetSize / largest, bitmap.getHeight() * targetSize / largest, true);
+            if(scaled != bitmap) bitmap.recycle();
+            bitmap = scaled;
+        }
+        return bitmap;
+    }
+
+    private static synchronized IconAtlas get(String key) {
+        return CACHE.get(key);
+    }
+
+    private static synchronized void put(String key, IconAtlas atlas) {
+        IconAtlas previous = CACHE.put(key, atlas);
+        if(previous != null) cacheBytes -= previous.byteCount();
+        cacheBytes += atlas.byteCount();
+        trimTo(CACHE_SIZE);
+    }
+
+    /**
+     * Evicts the least recently used atlases until the cache fits in maxBytes.
+     * Evicted bitmaps are left to the GC as views may still be drawing them.
+     */
+    static synchronized void trimTo(int maxBytes) {
+        Iterator<Map.Entry<String, IconAtlas>> it = CACHE.entrySet().iterator();
+        while (cacheBytes > maxBytes && it.hasNext()) {
+            cacheBytes -= it.next().getValue().byteCount();
+            it.remove();
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.devs.squaremenu;
+
+import android.view.animation.Interpolator;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Single clock behind the open/close animation. One reusable driver animates the
+ * square progress and the icon fade together, so a frame costs one callback and
+ * the direction can be reversed mid-flight without building new animators. While the
+ * menu cannot be seen it asks for no frames at all and every run jumps to its end.
+ */
+class MenuAnimator implements FrameDriver.Callback {
+
+    interface Callback {
+        /**
+         * Called once per frame with the eased progress of the squares and the linear
+         * progress of the icons.
+         */
+        void onMenuAnimationUpdate(float progress, float iconProgress);
+
+        /**
+         * Called when the menu comes to rest fully open or fully closed.
+         */
+        void onMenuAnimationSettled(boolean opened);
+    }
+
+    // A spring run ends once at rest, this only bounds it
+    private static final long SPRING_MAX_DURATION = 10000;
+    private static final long NOT_STARTED = -1;
+    private static final float DEFAULT_FRAME_RATE = 60f;
+
+    // Created on the first run, from the group when there is one
+    private FrameDriver driver = null;
+    private SquareMenuGroup group = null;
+    private boolean visible = true;
+    private long startTimeNanos = NOT_STARTED;
+    private long runDuration = 0;
+    private final Callback callback;
+    private final MenuTimeline timeline;
+    private final MenuSpring spring;
+    private Interpolator interpolator;
+    private float frameRate = DEFAULT_FRAME_RATE;
+    // Baked from the interpolator, the duration and the frame rate, null until needed
+    private MenuKeyframes keyframes = null;
+    private boolean springEnabled = false;
+    // Whether the run in flight, or the last one, follows the spring
+    private boolean springRun = false;
+
+    MenuAnimator(Callback callback, long moveDuration, long iconDuration, Interpolator interpolator,
+                 float springStiffness, float springDampingRatio) {
+        this.callback = callback;
+        this.interpolator = interpolator;
+        timeline = new MenuTimeline(moveDuration, iconDuration);
+        spring = new MenuSpring(springStiffness, springDampingRatio);
+    }
+
+    /**
+     * All of these take effect from the next run.
+     */
+    void setDurations(long moveDuration, long iconDuration) {
+        if(moveDuration == timeline.getMoveDuration() && iconDuration == timeline.getIconDuration()) return;
+        timeline.setDurations(moveDuration, iconDuration);
+        keyframes = null;
+    }
+
+    void setInterpolator(Interpolator interpolator) {
+        this.interpolator = interpolator;
+        keyframes = null;
+    }
+
+    /**
+     * @param frameRate refresh rate of the display, the easing is sampled once per frame
+     */
+    void setFrameRate(float frameRate) {
+        if(frameRate <= 0 || frameRate == this.frameRate) return;
+        this.frameRate = frameRate;
+        keyframes = null;
+    }
+
+    void setSpringEnabled(boolean enabled) {
+        springEnabled = enabled;
+    }
+
+    void setSpring(float stiffness, float dampingRatio) {
+        spring.configure(stiffness, dampingRatio);
+    }
+
+    /**
+     * Animates towards the open or closed state, starting from wherever the menu is now.
+     * A spring keeps its velocity, so reversing mid-flight stays smooth.
+     */
+    void animateTo(boolean open) {
+        if(!visible) {
+            float end = open ? 1f : 0f;
+            jumpTo(end, end, open);
+            return;
+        }
+        if(driver != null) driver.stop();
+        float target = open ? 1f : 0f;
+        if(springEnabled) {
+            if(!springRun) spring.reset(timeline.getProgress());
+            // The timeline follows the spring from where it is, for the icons and the saved state
+            timeline.jumpTo(Math.min(1f, Math.max(0f, spring.getPosition())), timeline.getIconProgress(), open);
+            spring.start(target);
+        }
+        else if(springRun) {
+            timeline.jumpTo(Math.min(1f, Math.max(0f, spring.getPosition())), timeline.getIconProgress(), open);
+        }
+        springRun = springEnabled;
+
+        long duration = timeline.start(open);
+        if(duration <= 0 && (!springRun || spring.isAtRest())) {
+            if(springRun) spring.reset(target);
+            dispatchUpdate();
+            callback.onMenuAnimationSettled(open);
+            return;
+        }
+        runDuration = springRun ? SPRING_MAX_DURATION : duration;
+        startTimeNanos = NOT_STARTED;
+        if(driver == null) driver = group != null ? group.newFrameDriver(this) : FrameDriver.create(this);
+        driver.start();
+    }
+
+    /**
+     * Jumps to the given progress without animating, cancelling any run in flight.
+     */
+    void jumpTo(float progress, float iconProgress, boolean open) {
+        if(driver != null) driver.stop();
+        timeline.jumpTo(progress, iconProgress, open);
+        spring.reset(progress);
+        springRun = false;
+        dispatchUpdate();
+        if(timeline.isSettled()) callback.onMenuAnimationSettled(open);
+    }
+
+    /**
+     * Takes frames from the shared callback of a group, or from an own driver when null.
+     * A run in flight carries on with the new driver.
+     */
+    void setGroup(SquareMenuGroup group) {
+        this.group = group;
+        if(driver == null) return;
+        boolean running = driver.isRunning();
+        driver.stop();
+        driver = group != null ? group.newFrameDriver(this) : FrameDriver.create(this);
+        if(running) driver.start();
+    }
+
+    /**
+     * Replaces the driver, for tests to deliver the frames themselves.
+     */
+    void setFrameDriver(FrameDriver driver) {
+        if(this.driver != null) this.driver.stop();
+        this.driver = driver;
+    }
+
+    /**
+     * @param visible false when nobody can see the menu: the run in flight jumps to its
+     *                end, and so do the next ones until the menu is visible again
+     */
+    void setVisible(boolean visible) {
+        this.visible = visible;
+        if(!visible) finish();
+    }
+
+    /**
+     * Jumps to the end of the run in flight, if any.
+     */
+    void finish() {
+        if(!isRunning()) return;
+        boolean open = timeline.isOpening();
+        float end = open ? 1f : 0f;
+        jumpTo(end, end, open);
+    }
+
+    boolean isRunning() {
+        return driver != null && driver.isRunning();
+    }
+
+    boolean isSettled() {
+        return timeline.isSettled() && (!springRun || spring.isAtRest());
+    }
+
+    /**
+     * @return progress of the squares before easing
+     */
+    float getProgress() {
+        return springRun ? spring.getPosition() : timeline.getProgress();
+    }
+
+    float getIconProgress() {
+        return timeline.getIconProgress();
+    }
+
+    /**
+     * @return ms the squares take to move from where they are to the open or closed state,
+     * by the move duration whether or not the run follows the spring
+     */
+    long getMoveDurationTo(boolean open) {
+        float target = open ? 1f : 0f;
+        return (long) (Math.abs(target - timeline.getProgress()) * timeline.getMoveDuration());
+    }
+
+    /**
+     * @return ms the icons take to fade in from where they are, 0 when closing as closing hides them at once
+     */
+    long getIconDurationTo(boolean open) {
+        if(!open) return 0;
+        return (long) ((1f - timeline.getIconProgress()) * timeline.getIconDuration());
+    }
+
+    /**
+     * @return true when the run in flight, or the last one, follows the spring
+     */
+    boolean isSpringRun() {
+        return springRun;
+    }
+
+    @Override
+    public void onFrame(long frameTimeNanos) {
+        // The run starts on its first frame, like an animator does
+        if(startTimeNanos == NOT_STARTED) startTimeNanos = frameTimeNanos;
+        long playTime = Math.min(runDuration, (frameTimeNanos - startTimeNanos) / 1000000L);
+        boolean done;
+        if(springRun) {
+            timeline.update(Math.min(playTime, timeline.getDuration()));
+            spring.update(playTime);
+            done = (spring.isAtRest() && playTime >= timeline.getDuration()) || playTime >= runDuration;
+            if(done && !spring.isAtRest()) spring.reset(timeline.isOpening() ? 1f : 0f);
+        }
+        else {
+            timeline.update(playTime);
+            done = playTime >= runDuration;
+        }
+        dispatchUpdate();
+        if(done) {
+            driver.stop();
+            callback.onMenuAnimationSettled(timeline.isOpening());
+        }
+    }
+
+    private void dispatchUpdate() {
+        // A spring may overshoot the open state, but never goes below closed
+        if(!springRun && keyframes == null)
+            keyframes = MenuKeyframes.obtain(interpolator, timeline.getMoveDuration(), frameRate);
+        float progress = springRun ? Math.max(0f, spring.getPosition()) : keyframes.ease(timeline.getProgress());
+        callback.onMenuAnimationUpdate(progress, timeline.getIconProgress());
+    }
+}
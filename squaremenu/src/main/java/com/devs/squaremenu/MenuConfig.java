@@ -0,0 +1,130 @@
+package com.devs.squaremenu;
+
+import android.content.res.Resources;
+import android.graphics.Color;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Immutable look of a SquareMenu: items, FAB color, open direction and auto close.
+ * Build one per kind of row and hand it to {@link SquareMenu#bind(MenuConfig)} on every
+ * bind; all menus bound to the same config share its icon ids, cache key and icon atlas,
+ * so binding a recycled menu again allocates nothing.
+ */
+public final class MenuConfig {
+
+    private final List<SquareMenuItem> items;
+    private final int fabColor;
+    private final boolean autoClose;
+    final int direction;
+    final MenuStyle style;
+
+    // Icon sources resolved once for every menu bound to this config
+    final int[] resIds;
+    final boolean hasDrawables;
+    private String iconKey = null;
+    private int iconKeySize = 0;
+    private IconAtlas drawableAtlas = null;
+    private int drawableAtlasSize = 0;
+
+    private MenuConfig(Builder builder) {
+        items = Collections.unmodifiableList(new ArrayList<SquareMenuItem>(builder.items));
+        fabColor = builder.fabColor;
+        autoClose = builder.autoClose;
+        direction = SquareMenu.parseDirection(builder.direction);
+        style = MenuStyle.obtain(fabColor);
+
+        resIds = new int[items.size()];
+        boolean drawables = false;
+        for (int i = 0; i < resIds.length; i++) {
+            resIds[i] = items.get(i).getIconResId();
+            drawables |= items.get(i).getIcon() != null;
+        }
+        hasDrawables = drawables;
+    }
+
+    public List<SquareMenuItem> getItems() {
+        return items;
+    }
+
+    public int getFABColor() {
+        return fabColor;
+    }
+
+    public String getMenuOpenDirection() {
+        return SquareMenu.directionName(direction);
+    }
+
+    public boolean isAutoClose() {
+        return autoClose;
+    }
+
+    /**
+     * @return the {@link IconLoader} key of the resource icons at the given size
+     */
+    String getIconKey(int cellSize) {
+        if(iconKey == null || iconKeySize != cellSize) {
+            iconKey = IconLoader.key(resIds, cellSize);
+            iconKeySize = cellSize;
+        }
+        return iconKey;
+    }
+
+    /**
+     * @return the atlas of the icons at the given size when some of them are drawables,
+     *         built once on the UI thread and then shared
+     */
+    IconAtlas getDrawableAtlas(Resources res, Resources.Theme theme, int cellSize) {
+        if(drawableAtlas == null || drawableAtlasSize != cellSize) {
+            drawableAtlas = IconAtlas.build(items, res, theme, cellSize);
+            drawableAtlasSize = cellSize;
+        }
+        return drawableAtlas;
+    }
+
+    public static final class Builder {
+
+        private List<SquareMenuItem> items = Collections.emptyList();
+        private int fabColor = Color.RED;
+        private String direction = null;
+        private boolean autoClose = false;
+
+        /**
+         * @param items menu items, in the order they fill the grid away from the FAB
+         */
+        public Builder setItems(List<SquareMenuItem> items) {
+            this.items = items;
+            return this;
+        }
+
+        public Builder setFABColor(int color) {
+            this.fabColor = color;
+            return this;
+        }
+
+        /**
+         * @param menuOpenDirection "top_left", "top_right", "bottom_left" OR "bottom_right",
+         *                          Default direction will be "top_left"
+         */
+        public Builder setMenuOpenDirection(String menuOpenDirection) {
+            this.direction = menuOpenDirection;
+            return this;
+        }
+
+        public Builder setAutoClose(boolean autoClose) {
+            this.autoClose = autoClose;
+            return this;
+        }
+
+        public MenuConfig build() {
+            return new MenuConfig(this);
+        }
+    }
+}
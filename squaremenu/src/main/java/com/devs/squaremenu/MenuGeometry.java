@@ -0,0 +1,204 @@
+package com.devs.squaremenu;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Layout of a SquareMenu as a k x k grid of square cells, computed once per layout pass.
+ * The FAB is the cell in the corner away from the open direction and is split in k x k
+ * squares; opening scales every square up and moves it out onto its own cell, where it
+ * sits flush with the FAB side and leaves the square margin on the other, so open squares
+ * never leave the grid and the gaps between them are even whatever k. The menu items take
+ * the other cells, so a touch resolves to an item with one array lookup.
+ */
+final class MenuGeometry {
+
+    static final int CELL_FAB = -1;
+    static final int CELL_EMPTY = -2;
+
+    // Square table: rect, scale pivot and full open translation of every square
+    static final int SQUARE_STRIDE = 8;
+    static final int PIVOT_X = 4, PIVOT_Y = 5, MOVE_X = 6, MOVE_Y = 7;
+
+    private final int outerMargin, squareMargin, plusPadding;
+
+    int gridSize = 0;
+    int squareCount = 0;
+    float scaleOpenX = 1f, scaleOpenY = 1f;
+    float[] squares = new float[0];
+    final float[] background = new float[4];
+    // Plus icon start x, start y and size
+    final float[] plus = new float[3];
+    float[] iconCenters = new float[0];
+    private int[] cellItems = new int[0];
+    private int cellWidth = 1, cellHeight = 1;
+
+    // Per axis, indexed by the distance in cells from the FAB
+    private float[] startX, endX, pivotX, moveX, centerX;
+    private float[] startY, endY, pivotY, moveY, centerY;
+
+    /**
+     * @param outerMargin  space kept between the FAB and the view edge it is anchored to
+     * @param squareMargin gap between the open squares
+     * @param plusPadding  space between the plus icon and the FAB edges
+     */
+    MenuGeometry(int outerMargin, int squareMargin, int plusPadding) {
+        this.outerMargin = outerMargin;
+        this.squareMargin = squareMargin;
+        this.plusPadding = plusPadding;
+    }
+
+    /**
+     * @return the smallest grid size with a cell for the FAB and every item, at least 2
+     */
+    static int gridSizeFor(int itemCount) {
+        int k = 2;
+        while (k * k - 1 < itemCount) k++;
+        return k;
+    }
+
+    /**
+     * @param dirX -1 when the menu opens to the left, 1 to the right
+     * @param dirY -1 when the menu opens upwards, 1 downwards
+     */
+    void layout(int width, int height, int cellWidth, int cellHeight, int dirX, int dirY, int itemCount) {
+        int k = gridSizeFor(itemCount);
+        if(k != gridSize) allocate(k);
+        this.cellWidth = Math.max(1, cellWidth);
+        this.cellHeight = Math.max(1, cellHeight);
+        // A square of cell / k grows to its cell less the margin
+        scaleOpenX = (float) k * Math.max(1, cellWidth - squareMargin) / this.cellWidth;
+        scaleOpenY = (float) k * Math.max(1, cellHeight - squareMargin) / this.cellHeight;
+
+        layoutAxis(width, cellWidth, dirX, startX, endX, pivotX, moveX, centerX, background, 0);
+        layoutAxis(height, cellHeight, dirY, startY, endY, pivotY, moveY, centerY, background, 1);
+
+        // The farthest squares first, the anchor square of the FAB last
+        int s = 0;
+        for (int b = k - 1; b >= 0; b--) {
+            for (int a = k - 1; a >= 0; a--, s += SQUARE_STRIDE) {
+                squares[s] = Math.min(startX[a], endX[a]);
+                squares[s + 1] = Math.min(startY[b], endY[b]);
+                squares[s + 2] = Math.max(startX[a], endX[a]);
+                squares[s + 3] = Math.max(startY[b], endY[b]);
+                squares[s + PIVOT_X] = pivotX[a];
+                squares[s + PIVOT_Y] = pivotY[b];
+                squares[s + MOVE_X] = moveX[a];
+                squares[s + MOVE_Y] = moveY[b];
+            }
+        }
+
+        plus[0] = centerX[0] - cellWidth/2 + plusPadding;
+        plus[1] = centerY[0];
+        plus[2] = cellWidth - 2*plusPadding;
+
+        // Items fill the cells row by row away from the FAB, snaking so that
+        // the first three land on the row, the diagonal and the column of the FAB
+        for (int i = 0; i < cellItems.length; i++) cellItems[i] = CELL_EMPTY;
+        cellItems[cellIndex(0, 0, dirX, dirY)] = CELL_FAB;
+        int item = 0;
+        for (int b = 0; b < k && item < itemCount; b++) {
+            for (int n = 0; n < k && item < itemCount; n++) {
+                int a = (b % 2 == 0) ? n : k - 1 - n;
+                if(a == 0 && b == 0) continue;
+                iconCenters[2*item] = centerX[a];
+                iconCenters[2*item + 1] = centerY[b];
+                cellItems[cellIndex(a, b, dirX, dirY)] = item++;
+            }
+        }
+    }
+
+    /**
+     * @return the item under the point, {@link #CELL_FAB} or {@link #CELL_EMPTY}
+     */
+    int itemAt(float x, float y) {
+        int col = Math.min(gridSize - 1, Math.max(0, (int) (x / cellWidth)));
+        int row = Math.min(gridSize - 1, Math.max(0, (int) (y / cellHeight)));
+        return cellItems[row * gridSize + col];
+    }
+
+    /**
+     * Transform of a square at the given progress, as x * scaleX + translateX.
+     *
+     * @param out scale x, scale y, translate x and translate y
+     */
+    void transform(int square, float progress, float[] out) {
+        int g = square * SQUARE_STRIDE;
+        float sx = 1f + (scaleOpenX - 1f) * progress;
+        float sy = 1f + (scaleOpenY - 1f) * progress;
+        out[0] = sx;
+        out[1] = sy;
+        out[2] = squares[g + PIVOT_X] * (1f - sx) + squares[g + MOVE_X] * progress;
+        out[3] = squares[g + PIVOT_Y] * (1f - sy) + squares[g + MOVE_Y] * progress;
+    }
+
+    /**
+     * Bounds of a square at the given progress, grown by outset before it is transformed
+     * the way a shadow drawn around the square is.
+     *
+     * @param out left, top, right and bottom
+     */
+    void mapSquare(int square, float progress, float outset, float[] out) {
+        int g = square * SQUARE_STRIDE;
+        transform(square, progress, out);
+        float sx = out[0], sy = out[1], tx = out[2], ty = out[3];
+        out[0] = (squares[g] - outset) * sx + tx;
+        out[1] = (squares[g + 1] - outset) * sy + ty;
+        out[2] = (squares[g + 2] + outset) * sx + tx;
+        out[3] = (squares[g + 3] + outset) * sy + ty;
+    }
+
+    private int cellIndex(int a, int b, int dirX, int dirY) {
+        int col = dirX < 0 ? gridSize - 1 - a : a;
+        int row = dirY < 0 ? gridSize - 1 - b : b;
+        return row * gridSize + col;
+    }
+
+    private void allocate(int k) {
+        gridSize = k;
+        squareCount = k * k;
+        squares = new float[squareCount * SQUARE_STRIDE];
+        iconCenters = new float[2 * (squareCount - 1)];
+        cellItems = new int[squareCount];
+        startX = new float[k]; endX = new float[k]; pivotX = new float[k]; moveX = new float[k]; centerX = new float[k];
+        startY = new float[k]; endY = new float[k]; pivotY = new float[k]; moveY = new float[k]; centerY = new float[k];
+    }
+
+    /**
+     * Lays out one axis as if the menu opened towards 0, with the FAB in the last cell,
+     * and mirrors it when the menu opens the other way.
+     */
+    private void layoutAxis(int size, int cell, int dir, float[] start, float[] end, float[] pivot,
+                            float[] move, float[] center, float[] fab, int fabOffset) {
+        int k = gridSize;
+        float part = (float) cell / k;
+        float fabStart = (k - 1) * cell;
+        float fabEnd = dir < 0 ? size - outerMargin : k * cell;
+        for (int a = 0; a < k; a++) {
+            int c = k - 1 - a;
+            start[a] = fabStart + c * part;
+            pivot[a] = fabStart + (c + 1) * part;
+            end[a] = a == 0 ? fabEnd : pivot[a];
+            // Scaled about its FAB side edge, which lands on the FAB side edge of its cell
+            move[a] = (c + 1) * cell - pivot[a];
+            center[a] = c * cell + cell / 2;
+        }
+        fab[fabOffset] = fabStart;
+        fab[fabOffset + 2] = fabEnd;
+
+        if(dir > 0) {
+            float mirror = k * cell;
+            for (int a = 0; a < k; a++) {
+                start[a] = mirror - start[a];
+                end[a] = mirror - end[a];
+                pivot[a] = mirror - pivot[a];
+                move[a] = -move[a];
+                center[a] = mirror - center[a];
+            }
+            fab[fabOffset] = mirror - fabEnd;
+            fab[fabOffset + 2] = mirror - fabStart;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.devs.squaremenu;
+
+import android.view.animation.Interpolator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Easing curve of the squares baked into a table with one sample per display frame of
+ * the animation, so a frame eases its progress with one lookup and a lerp between the
+ * two nearest samples instead of evaluating the interpolator. Tables are shared by every
+ * menu with the same interpolator, duration and refresh rate.
+ */
+final class MenuKeyframes {
+
+    private static final int MAX_TABLES = 8;
+    private static final int MIN_SAMPLES = 2;
+    private static final int MAX_SAMPLES = 1024;
+
+    private static final Map<String, MenuKeyframes> TABLES = new LinkedHashMap<String, MenuKeyframes>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, MenuKeyframes> eldest) {
+            return size() > MAX_TABLES;
+        }
+    };
+
+    private final Interpolator interpolator;
+    private final float[] samples;
+    private final int last;
+
+    private MenuKeyframes(Interpolator interpolator, int sampleCount) {
+        this.interpolator = interpolator;
+        samples = new float[sampleCount];
+        last = sampleCount - 1;
+        for (int i = 0; i <= last; i++) samples[i] = interpolator.getInterpolation((float) i / last);
+    }
+
+    /**
+     * @param duration  ms of a full open or close
+     * @param frameRate refresh rate of the display the menu is on
+     */
+    static synchronized MenuKeyframes obtain(Interpolator interpolator, long duration, float frameRate) {
+        int frames = (int) Math.ceil(duration * frameRate / 1000f);
+        int sampleCount = Math.min(MAX_SAMPLES, Math.max(MIN_SAMPLES, frames + 1));
+        String key = System.identityHashCode(interpolator) + "/" + sampleCount;
+        MenuKeyframes table = TABLES.get(key);
+        if(table == null || table.interpolator != interpolator) {
+            table = new MenuKeyframes(interpolator, sampleCount);
+            TABLES.put(key, table);
+        }
+        return table;
+    }
+
+    /**
+     * @param progress linear progress between 0 and 1
+     * @return the eased progress
+     */
+    float ease(float progress) {
+        if(progress <= 0f) return samples[0];
+        if(progress >= 1f) return samples[last];
+        float position = progress * last;
+        int i = (int) position;
+        return samples[i] + (samples[i + 1] - samples[i]) * (position - i);
+    }
+}
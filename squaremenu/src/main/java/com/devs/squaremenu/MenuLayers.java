@@ -0,0 +1,316 @@
+package com.devs.squaremenu;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Build;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.animation.Interpolator;
+import android.view.animation.LinearInterpolator;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Child views of a SquareMenu in the layers render mode: one per square, one for the plus
+ * icon and one per menu icon. Each draws its content once; opening and closing then only
+ * set the scale, translation, rotation and alpha of the views, which a hardware
+ * accelerated window applies to the recorded display lists without drawing them again.
+ * A timed run can also be handed to the view property animators of the layers, see
+ * {@link #animateTo}.
+ */
+final class MenuLayers {
+
+    private static final int SQUARE = 0, PLUS = 1, ICON = 2;
+    private static final Interpolator LINEAR = new LinearInterpolator();
+
+    private final ViewGroup parent;
+    private Layer[] squares = new Layer[0];
+    private Layer[] icons = new Layer[0];
+    private final Layer plus;
+    // Scratch for the transform of one square
+    private final float[] transform = new float[4];
+    // Easing of the run handed to the view property animators, if any
+    private final RunInterpolator runInterpolator = new RunInterpolator();
+    private boolean animating = false;
+
+    // What the layers draw, see setContent
+    private MenuStyle style = null;
+    private Bitmap[] squareShadows = null;
+    private boolean showSquareShadows = false;
+    private IconAtlas iconAtlas = null;
+    private int squarePad = 0;
+    private float plusSize = 0;
+
+    MenuLayers(ViewGroup parent) {
+        this.parent = parent;
+        plus = new Layer(parent.getContext(), this, PLUS, 0);
+    }
+
+    /**
+     * Adds a layer for every square and every item, in drawing order: the squares, then
+     * the plus icon on the FAB, then the icons. Does nothing when the counts did not change.
+     */
+    void setCounts(int squareCount, int iconCount) {
+        if(squares.length == squareCount && icons.length == iconCount && plus.getParent() == parent) return;
+        parent.removeAllViews();
+        // The animators of a run handed over went with the old layers
+        animating = false;
+        Context context = parent.getContext();
+        squares = new Layer[squareCount];
+        for (int i = 0; i < squareCount; i++) {
+            squares[i] = new Layer(context, this, SQUARE, i);
+            parent.addView(squares[i]);
+        }
+        parent.addView(plus);
+        icons = new Layer[iconCount];
+        for (int i = 0; i < iconCount; i++) {
+            icons[i] = new Layer(context, this, ICON, i);
+            parent.addView(icons[i]);
+        }
+    }
+
+    void clear() {
+        parent.removeAllViews();
+        animating = false;
+        squares = new Layer[0];
+        icons = new Layer[0];
+    }
+
+    /**
+     * Redraws the layers whose content changed, the only time they are drawn again.
+     *
+     * @return true when the square shadows were shown or hidden
+     */
+    boolean setContent(MenuStyle style, Bitmap[] squareShadows, boolean showSquareShadows, IconAtlas iconAtlas) {
+        boolean shadowsToggled = this.showSquareShadows != showSquareShadows;
+        if(this.style != style) {
+            this.style = style;
+            invalidate(squares);
+            plus.invalidate();
+        }
+        else if(this.squareShadows != squareShadows || shadowsToggled) invalidate(squares);
+        this.squareShadows = squareShadows;
+        this.showSquareShadows = showSquareShadows;
+        if(this.iconAtlas != iconAtlas) {
+            this.iconAtlas = iconAtlas;
+            invalidate(icons);
+        }
+        return shadowsToggled;
+    }
+
+    /**
+     * Redraws the squares, after their shadows were picked again in place.
+     */
+    void invalidateSquares() {
+        invalidate(squares);
+    }
+
+    /**
+     * Places every layer on the resting, closed position of its content.
+     */
+    void layout(MenuGeometry geometry, int squarePad, RectF[] iconBounds) {
+        this.squarePad = squarePad;
+        float[] rects = geometry.squares;
+        for (int i = 0; i < squares.length && i < geometry.squareCount; i++) {
+            int g = i * MenuGeometry.SQUARE_STRIDE;
+            squares[i].place(rects[g] - squarePad, rects[g + 1] - squarePad,
+                    rects[g + 2] + squarePad, rects[g + 3] + squarePad);
+        }
+
+        // Turns about the middle of its lines
+        float[] plus = geometry.plus;
+        plusSize = plus[2];
+        float half = plusSize / 2 + (style != null ? style.plus.getStrokeWidth() : 0);
+        float centerX = plus[0] + plusSize / 2, centerY = plus[1];
+        this.plus.place(centerX - half, centerY - half, centerX + half, centerY + half);
+        this.plus.setPivotX(centerX - this.plus.getLeft());
+        this.plus.setPivotY(centerY - this.plus.getTop());
+
+        for (int i = 0; i < icons.length && i < iconBounds.length; i++) {
+            RectF bounds = iconBounds[i];
+            icons[i].place(bounds.left, bounds.top, bounds.right, bounds.bottom);
+        }
+    }
+
+    /**
+     * Moves the layers to the given progress, changing view properties only.
+     */
+    void update(MenuGeometry geometry, float progress, float plusRotation, float iconAlpha) {
+        for (int i = 0; i < squares.length && i < geometry.squareCount; i++) {
+            geometry.transform(i, progress, transform);
+            // Scaled about the view origin, so the translation takes the offset of the view
+            Layer square = squares[i];
+            square.setScaleX(transform[0]);
+            square.setScaleY(transform[1]);
+            square.setTranslationX(transform[2] - square.getLeft() * (1f - transform[0]));
+            square.setTranslationY(transform[3] - square.getTop() * (1f - transform[1]));
+        }
+        plus.setRotation(plusRotation);
+        for (Layer icon : icons) icon.setAlpha(iconAlpha);
+    }
+
+    /**
+     * Hands the rest of a timed run to the view property animators of the layers. From
+     * API 21 in a hardware accelerated window they play on the render thread, so the
+     * menu keeps moving while the UI thread is busy. The layers are first put where the
+     * run is now, so a run that reverses another one mid-flight carries on from there.
+     * While {@link #isAnimating()} the layers are left to their animators.
+     *
+     * @param from          progress of the squares before easing, where the run is now
+     * @param to            progress the run ends on, 0 or 1
+     * @param duration      ms the squares take to get there, 0 puts them there at once
+     * @param easing        easing of the squares, as the menu clock applies it
+     * @param openRotation  rotation of the plus icon when open
+     * @param iconAlpha     alpha of the icons now
+     * @param toIconAlpha   alpha of the icons at the end of the run
+     * @param iconDuration  ms the icons take to get there
+     */
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB_MR1)
+    void animateTo(MenuGeometry geometry, float from, float to, long duration, Interpolator easing,
+                   float openRotation, float iconAlpha, float toIconAlpha, long iconDuration) {
+        cancelAnimation();
+        float eased = easing.getInterpolation(from);
+        update(geometry, eased, openRotation * eased, iconAlpha);
+        runInterpolator.set(easing, from, to);
+        for (int i = 0; i < squares.length && i < geometry.squareCount; i++) {
+            geometry.transform(i, to, transform);
+            Layer square = squares[i];
+            // No listener, which would keep the animation on the UI thread
+            square.animate().setDuration(duration).setInterpolator(runInterpolator)
+                    .scaleX(transform[0]).scaleY(transform[1])
+                    .translationX(transform[2] - square.getLeft() * (1f - transform[0]))
+                    .translationY(transform[3] - square.getTop() * (1f - transform[1]));
+        }
+        plus.animate().setDuration(duration).setInterpolator(runInterpolator)
+                .rotation(openRotation * easing.getInterpolation(to));
+        for (Layer icon : icons) icon.animate().setDuration(iconDuration).setInterpolator(LINEAR).alpha(toIconAlpha);
+        animating = duration > 0 || iconDuration > 0;
+    }
+
+    /**
+     * Puts the layers on the end of a run handed to their animators, after which they
+     * move by {@link #update} again. Does nothing when no run was handed over.
+     */
+    void land(MenuGeometry geometry, float progress, Interpolator easing, float openRotation, float iconAlpha) {
+        // Through the animators as well, so the render thread gets the end values too
+        if(animating) animateTo(geometry, progress, progress, 0, easing, openRotation, iconAlpha, iconAlpha, 0);
+    }
+
+    /**
+     * Stops the animators where they are, for a run that moves the layers frame by frame.
+     */
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB_MR1)
+    void cancelAnimation() {
+        if(!animating) return;
+        animating = false;
+        for (Layer square : squares) square.animate().cancel();
+        plus.animate().cancel();
+        for (Layer icon : icons) icon.animate().cancel();
+    }
+
+    boolean isAnimating() {
+        return animating;
+    }
+
+    private static void invalidate(Layer[] layers) {
+        for (Layer layer : layers) layer.invalidate();
+    }
+
+    private void draw(Layer layer, Canvas canvas) {
+        if(style == null) return;
+        switch (layer.kind) {
+            case SQUARE:
+                RectF content = layer.content;
+                Bitmap shadow = squareShadows != null && layer.index < squareShadows.length ?
+                        squareShadows[layer.index] : null;
+                if(showSquareShadows && shadow != null)
+                    canvas.drawBitmap(shadow, content.left, content.top, style.shadow);
+                canvas.drawRect(content.left + squarePad, content.top + squarePad,
+                        content.right - squarePad, content.bottom - squarePad, style.fab);
+                break;
+            case PLUS:
+                float x = plus.getPivotX(), y = plus.getPivotY(), half = plusSize / 2;
+                canvas.drawLine(x - half, y, x + half, y, style.plus);
+                canvas.drawLine(x, y - half, x, y + half, style.plus);
+                break;
+            case ICON:
+                Rect src = iconAtlas != null ? iconAtlas.getBounds(layer.index) : null;
+                if(src == null) return;
+                canvas.drawBitmap(iconAtlas.bitmap, src, layer.content, null);
+                break;
+        }
+    }
+
+    /**
+     * Eases the rest of a run the way the menu clock does: the clock advances the progress
+     * before easing at a constant rate from where the run starts, and the view property
+     * animators get the share of the eased distance covered so far. Sampled by the render
+     * thread when an animation starts, so one instance serves every run.
+     */
+    private static final class RunInterpolator implements Interpolator {
+
+        private Interpolator easing;
+        private float from, to, easedFrom, easedDistance;
+
+        void set(Interpolator easing, float from, float to) {
+            this.easing = easing;
+            this.from = from;
+            this.to = to;
+            easedFrom = easing.getInterpolation(from);
+            easedDistance = easing.getInterpolation(to) - easedFrom;
+        }
+
+        @Override
+        public float getInterpolation(float input) {
+            if(easedDistance == 0) return input;
+            return (easing.getInterpolation(from + (to - from) * input) - easedFrom) / easedDistance;
+        }
+    }
+
+    /**
+     * One square, the plus icon or one icon, laid out on the whole pixels around its
+     * content, which it keeps in its own coordinates.
+     */
+    private static final class Layer extends View {
+
+        final MenuLayers layers;
+        final int kind, index;
+        final RectF content = new RectF();
+
+        Layer(Context context, MenuLayers layers, int kind, int index) {
+            super(context);
+            this.layers = layers;
+            this.kind = kind;
+            this.index = index;
+            setPivotX(0);
+            setPivotY(0);
+        }
+
+        void place(float left, float top, float right, float bottom) {
+            int l = (int) Math.floor(left), t = (int) Math.floor(top);
+            int r = (int) Math.ceil(right), b = (int) Math.ceil(bottom);
+            content.set(left - l, top - t, right - l, bottom - t);
+            measure(MeasureSpec.makeMeasureSpec(r - l, MeasureSpec.EXACTLY),
+                    MeasureSpec.makeMeasureSpec(b - t, MeasureSpec.EXACTLY));
+            layout(l, t, r, b);
+        }
+
+        @Override
+        protected void onDraw(Canvas canvas) {
+            layers.draw(this, canvas);
+        }
+
+        @Override
+        public boolean hasOverlappingRendering() {
+            // Only the icons fade, and each is a single bitmap
+            return kind != ICON;
+        }
+    }
+}
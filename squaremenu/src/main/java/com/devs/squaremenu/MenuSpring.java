@@ -0,0 +1,82 @@
+package com.devs.squaremenu;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Damped spring pulling the square progress towards the open or closed state. It is
+ * integrated in fixed steps whatever the frame rate, so the motion is the same on every
+ * display, and a new target keeps the current velocity so reversals stay smooth.
+ * Plain Java, like {@link MenuTimeline}.
+ */
+final class MenuSpring {
+
+    // Integration step in seconds, and the most steps taken for one frame
+    private static final float STEP = 1f / 240;
+    private static final int MAX_STEPS = 240;
+    private static final float REST_DISTANCE = 0.001f;
+    private static final float REST_VELOCITY = 0.01f;
+
+    private float stiffness, damping;
+    private float position = 0f, velocity = 0f, target = 0f;
+    private long playedTime = 0;
+    private float pendingTime = 0f;
+
+    /**
+     * @param stiffness    spring constant for a unit mass, higher is faster
+     * @param dampingRatio 1 for no overshoot, lower to bounce
+     */
+    MenuSpring(float stiffness, float dampingRatio) {
+        configure(stiffness, dampingRatio);
+    }
+
+    void configure(float stiffness, float dampingRatio) {
+        this.stiffness = stiffness;
+        this.damping = 2f * dampingRatio * (float) Math.sqrt(stiffness);
+    }
+
+    /**
+     * Puts the spring at rest at the given position.
+     */
+    void reset(float position) {
+        this.position = target = position;
+        velocity = 0f;
+    }
+
+    /**
+     * Starts pulling towards a new target from the current position and velocity.
+     */
+    void start(float target) {
+        this.target = target;
+        playedTime = 0;
+        pendingTime = 0f;
+    }
+
+    /**
+     * @param playTime ms played since {@link #start(float)}
+     */
+    void update(long playTime) {
+        pendingTime += (playTime - playedTime) / 1000f;
+        playedTime = playTime;
+        int steps = 0;
+        while (pendingTime >= STEP && steps++ < MAX_STEPS) {
+            float acceleration = -stiffness * (position - target) - damping * velocity;
+            velocity += acceleration * STEP;
+            position += velocity * STEP;
+            pendingTime -= STEP;
+        }
+        // Drop the time a long stall could not catch up with
+        if(steps > MAX_STEPS) pendingTime = 0f;
+        if(isAtRest()) reset(target);
+    }
+
+    boolean isAtRest() {
+        return Math.abs(position - target) < REST_DISTANCE && Math.abs(velocity) < REST_VELOCITY;
+    }
+
+    float getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,61 @@
+package com.devs.squaremenu;
+
+import android.graphics.Color;
+import android.graphics.Paint;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Paints of a SquareMenu, interned per FAB color so every menu of the same color draws
+ * with the same three Paint objects. They are never changed once built; a menu changing
+ * color switches to the style of the new color instead.
+ */
+final class MenuStyle {
+
+    private static final int MAX_STYLES = 16;
+    private static final float FAB_ICON_WIDTH = 2;
+
+    private static final Map<Integer, MenuStyle> STYLES = new LinkedHashMap<Integer, MenuStyle>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, MenuStyle> eldest) {
+            return size() > MAX_STYLES;
+        }
+    };
+
+    final int fabColor;
+    final Paint fab, shadow, plus;
+
+    private MenuStyle(int fabColor) {
+        this.fabColor = fabColor;
+
+        fab = new Paint();
+        fab.setStyle(Paint.Style.FILL);
+        fab.setColor(fabColor);
+
+        shadow = new Paint();
+        shadow.setFilterBitmap(true);
+
+        plus = new Paint();
+        plus.setColor(Color.WHITE);
+        plus.setAntiAlias(true);
+        plus.setStrokeWidth(FAB_ICON_WIDTH);
+    }
+
+    /**
+     * @return the shared style of the given FAB color
+     */
+    static synchronized MenuStyle obtain(int fabColor) {
+        MenuStyle style = STYLES.get(fabColor);
+        if(style == null) {
+            style = new MenuStyle(fabColor);
+            STYLES.put(fabColor, style);
+        }
+        return style;
+    }
+}
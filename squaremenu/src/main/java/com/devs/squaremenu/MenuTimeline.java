@@ -0,0 +1,118 @@
+package com.devs.squaremenu;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Linear progress of the squares and of the icon fade for one open or close run,
+ * as a function of the time played. Plain Java with no Android types, so that it
+ * runs and can be measured on any JVM together with {@link MenuGeometry}.
+ */
+final class MenuTimeline {
+
+    private long moveDuration, iconDuration;
+
+    private float progress = 0f, iconProgress = 0f;
+    private float fromProgress, toProgress, fromIconProgress, toIconProgress;
+    private long duration;
+
+    MenuTimeline(long moveDuration, long iconDuration) {
+        this.moveDuration = moveDuration;
+        this.iconDuration = iconDuration;
+    }
+
+    /**
+     * Takes effect from the next {@link #start(boolean)}.
+     */
+    void setDurations(long moveDuration, long iconDuration) {
+        this.moveDuration = moveDuration;
+        this.iconDuration = iconDuration;
+    }
+
+    /**
+     * Starts a run towards the open or closed state from wherever the menu is now.
+     * Closing hides the icons at once, as they are only drawn while the menu is open.
+     *
+     * @return length of the run in ms, 0 when the menu is already there
+     */
+    long start(boolean open) {
+        fromProgress = progress;
+        toProgress = open ? 1f : 0f;
+        if(!open) iconProgress = 0f;
+        fromIconProgress = iconProgress;
+        toIconProgress = open ? 1f : 0f;
+
+        duration = Math.max((long) (Math.abs(toProgress - fromProgress) * moveDuration),
+                (long) (Math.abs(toIconProgress - fromIconProgress) * iconDuration));
+        // A run too short for a single ms is over before its first frame
+        if(duration == 0) land();
+        return duration;
+    }
+
+    /**
+     * Puts the menu at the given progress with no run in flight, heading to the open or closed state.
+     */
+    void jumpTo(float progress, float iconProgress, boolean open) {
+        this.progress = fromProgress = progress;
+        this.iconProgress = fromIconProgress = iconProgress;
+        toProgress = toIconProgress = open ? 1f : 0f;
+        duration = 0;
+    }
+
+    /**
+     * @return true when the squares and the icons rest at the end of the current direction
+     */
+    boolean isSettled() {
+        return progress == toProgress && iconProgress == toIconProgress;
+    }
+
+    /**
+     * @param playTime ms played since {@link #start(boolean)}
+     * @return true once the run is complete
+     */
+    boolean update(long playTime) {
+        // The duration is rounded down to the ms, so the last frame lands on the target itself
+        if(playTime >= duration) {
+            land();
+            return true;
+        }
+        progress = approach(fromProgress, toProgress, moveDuration > 0 ? (float) playTime / moveDuration : 1f);
+        iconProgress = approach(fromIconProgress, toIconProgress, iconDuration > 0 ? (float) playTime / iconDuration : 1f);
+        return false;
+    }
+
+    long getMoveDuration() {
+        return moveDuration;
+    }
+
+    long getIconDuration() {
+        return iconDuration;
+    }
+
+    float getProgress() {
+        return progress;
+    }
+
+    float getIconProgress() {
+        return iconProgress;
+    }
+
+    long getDuration() {
+        return duration;
+    }
+
+    boolean isOpening() {
+        return toProgress == 1f;
+    }
+
+    private void land() {
+        progress = toProgress;
+        iconProgress = toIconProgress;
+    }
+
+    private static float approach(float from, float to, float delta) {
+        return from < to ? Math.min(to, from + delta) : Math.max(to, from - delta);
+    }
+}
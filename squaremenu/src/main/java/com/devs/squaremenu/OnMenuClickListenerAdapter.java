@@ -0,0 +1,38 @@
+package com.devs.squaremenu;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Delivers item clicks to an {@link OnMenuClickListener}, the first three items
+ * map to onClickMenu1..3 and any further item is ignored.
+ */
+public class OnMenuClickListenerAdapter implements OnMenuItemClickListener {
+
+    private final OnMenuClickListener listener;
+
+    public OnMenuClickListenerAdapter(OnMenuClickListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void onMenuOpen() {
+        listener.onMenuOpen();
+    }
+
+    @Override
+    public void onMenuClose() {
+        listener.onMenuClose();
+    }
+
+    @Override
+    public void onItemClick(int index, long itemId) {
+        switch (index) {
+            case 0: listener.onClickMenu1(); break;
+            case 1: listener.onClickMenu2(); break;
+            case 2: listener.onClickMenu3(); break;
+        }
+    }
+}
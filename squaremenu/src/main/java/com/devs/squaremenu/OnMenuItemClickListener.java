@@ -0,0 +1,19 @@
+package com.devs.squaremenu;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ */
+public interface OnMenuItemClickListener {
+
+    void onMenuOpen();
+    void onMenuClose();
+
+    /**
+     * @param index  position of the clicked item in the menu
+     * @param itemId id of the clicked {@link SquareMenuItem}
+     */
+    void onItemClick(int index, long itemId);
+}
@@ -0,0 +1,80 @@
+package com.devs.squaremenu;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Blurred shadows of rects, rendered once per size into bitmaps and shared by every
+ * SquareMenu. Drawing a shadow is then a plain bitmap blit instead of a blur per frame,
+ * and needs no software layer.
+ */
+final class ShadowCache {
+
+    private static final int MAX_ENTRIES = 16;
+
+    private static final Map<String, Bitmap> CACHE = new LinkedHashMap<String, Bitmap>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Bitmap> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private ShadowCache() {
+    }
+
+    /**
+     * @return space around the rect that the shadow bitmap reserves on every side
+     */
+    static int padding(float radius, float dx, float dy) {
+        return (int) Math.ceil(2 * radius + Math.max(Math.abs(dx), Math.abs(dy)));
+    }
+
+    /**
+     * Same shadow as a paint with setShadowLayer(radius, dx, dy, BLACK) draws for a
+     * width x height rect, without the rect itself. Draw it at the rect's left and top
+     * minus {@link #padding(float, float, float)}.
+     */
+    static synchronized Bitmap get(int width, int height, float radius, float dx, float dy) {
+        if(width <= 0 || height <= 0) return null;
+        String key = width + "x" + height + "/" + radius + "/" + dx + "/" + dy;
+        Bitmap shadow = CACHE.get(key);
+        if(shadow == null) {
+            shadow = render(width, height, radius, dx, dy);
+            CACHE.put(key, shadow);
+        }
+        return shadow;
+    }
+
+    private static Bitmap render(int width, int height, float radius, float dx, float dy) {
+        int pad = padding(radius, dx, dy);
+        Bitmap shadow = Bitmap.createBitmap(width + 2*pad, height + 2*pad, Bitmap.Config.ARGB_8888);
+        // A bitmap canvas is always software, so the shadow layer is honoured on every API
+        Canvas canvas = new Canvas(shadow);
+        Paint paint = new Paint();
+        paint.setColor(Color.BLACK);
+        paint.setShadowLayer(radius, dx, dy, Color.BLACK);
+        canvas.drawRect(pad, pad, pad + width, pad + height, paint);
+
+        // Keep the shadow only, the rect is drawn on top of it
+        paint.clearShadowLayer();
+        paint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.CLEAR));
+        canvas.drawRect(pad, pad, pad + width, pad + height, paint);
+        return shadow;
+    }
+
+    static synchronized void clear() {
+        CACHE.clear();
+    }
+}
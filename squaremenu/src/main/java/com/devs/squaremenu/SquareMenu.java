@@ -1,23 +1,38 @@
 package com.devs.squaremenu;
 
+import android.content.ContentResolver;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.Matrix;
 import android.graphics.Paint;
-import android.graphics.drawable.BitmapDrawable;
+import android.graphics.Rect;
+import android.graphics.RectF;
 import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.PowerManager;
+import android.provider.Settings;
 import android.util.AttributeSet;
-import android.util.Log;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.ViewGroup;
+import android.view.WindowManager;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.AccelerateInterpolator;
+import android.view.animation.DecelerateInterpolator;
+import android.view.animation.Interpolator;
 import android.view.animation.LinearInterpolator;
+import android.view.animation.OvershootInterpolator;
 
-import com.nineoldandroids.animation.Animator;
-import com.nineoldandroids.animation.AnimatorListenerAdapter;
-import com.nineoldandroids.animation.AnimatorSet;
-import com.nineoldandroids.animation.ValueAnimator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 
 /**
@@ -27,100 +42,424 @@ import com.nineoldandroids.animation.ValueAnimator;
  *         http://www.apache.org/licenses/LICENSE-2.0
  */
 
-public class SquareMenu extends View {
+public class SquareMenu extends ViewGroup {
 
     private static final String TAG = SquareMenu.class.getSimpleName();
 
+    // Interpolators of the squares, see setAnimationInterpolator
+    public static final int INTERPOLATOR_ACCELERATE_DECELERATE = 0;
+    public static final int INTERPOLATOR_LINEAR = 1;
+    public static final int INTERPOLATOR_ACCELERATE = 2;
+    public static final int INTERPOLATOR_DECELERATE = 3;
+    public static final int INTERPOLATOR_OVERSHOOT = 4;
+
+    // Motion policies, see setMotionPolicy
+    public static final int MOTION_FULL = 0;
+    public static final int MOTION_REDUCED = 1;
+    public static final int MOTION_NONE = 2;
+    public static final int MOTION_SYSTEM = 3;
+
+    // Render modes
+    public static final int RENDER_MODE_SOFTWARE = 0;
+    public static final int RENDER_MODE_HARDWARE = 1;
+    public static final int RENDER_MODE_LAYERS = 2;
+
     // Default values
     private static final int FAB_MARGIN = 8;
     private static final int FAB_ICON_PADDING = 20;
-    private static final float FAB_ICON_WIDTH = 2;
     private static final int MARGIN_BW_SQUARES = 3;
     private static final int FAB_SIZE = 56;
     private static final int FAB_COLOR = Color.RED;
     private static final long ANIM_SPEED = 200;
-    private static final String TOP_LEFT = "top_left";
-    private static final String TOP_RIGHT = "top_right";
-    private static final String DEFAULT_DIRECTION = TOP_LEFT;
+    private static final long ICON_FADE_SPEED = 1000;
+    private static final int OPEN_ROTATION = 45;
+    // Shadows of the squares while open, and of the BG rect while closed
+    private static final float SQUARE_SHADOW_RADIUS = 2;
+    private static final float BG_SHADOW_RADIUS = 5, BG_SHADOW_OFFSET = 1;
+    private static final int LEGACY_ITEM_COUNT = 3;
+    private static final int[] LEGACY_ICON_ATTRS = {
+            R.styleable.SquareMenu_iconM1, R.styleable.SquareMenu_iconM2, R.styleable.SquareMenu_iconM3};
+    // Stateless, so shared by every menu. Indexed by the INTERPOLATOR_ constants
+    private static final Interpolator[] INTERPOLATORS = {new AccelerateDecelerateInterpolator(),
+            new LinearInterpolator(), new AccelerateInterpolator(), new DecelerateInterpolator(),
+            new OvershootInterpolator()};
+    private static final int DEFAULT_INTERPOLATOR = INTERPOLATOR_ACCELERATE_DECELERATE;
+    private static final float SPRING_STIFFNESS = 500f;
+    private static final float SPRING_DAMPING_RATIO = 0.7f;
+    private static final long NO_IDLE_RELEASE = -1;
+    private static final int DEFAULT_MOTION = MOTION_FULL;
+    // Icon crossfade of the reduced motion, the squares jump
+    private static final long REDUCED_ICON_FADE = 150;
+
+    // What a property change affects, applied at once or at the end of an update
+    private static final int CHANGE_PAINT = 1;
+    private static final int CHANGE_GEOMETRY = 1 << 1;
+    private static final int CHANGE_LAYOUT = 1 << 2;
+    private static final int CHANGE_RENDER_MODE = 1 << 3;
+
+    // Open directions, indexes of the corner tables below
+    private static final int TOP_LEFT = 0;
+    private static final int TOP_RIGHT = 1;
+    private static final int BOTTOM_LEFT = 2;
+    private static final int BOTTOM_RIGHT = 3;
+    private static final String[] DIRECTION_NAMES = {"top_left", "top_right", "bottom_left", "bottom_right"};
+    private static final int[] DIRECTION_X = {-1, 1, -1, 1};
+    private static final int[] DIRECTION_Y = {-1, -1, 1, 1};
+    private static final int DEFAULT_DIRECTION = TOP_LEFT;
+
+    private static final int DEFAULT_RENDER_MODE = RENDER_MODE_SOFTWARE;
 
     // Custom values
     private int fabWidth = FAB_SIZE, fabHeight = FAB_SIZE;
     private int fabColor = FAB_COLOR;
     private boolean autoClose = false;
-    private String menuOpenDirection = DEFAULT_DIRECTION;
-    private Paint paintFAB, paintFabBG, paintFabBGWidShadow, paintFabBGWithoutShadow, paintFabPlus, paintIcons;
-
-    private Bitmap bitmapM1 = null, bitmapM2 = null, bitmapM3 = null;
-
-    private int xTransTL = 0, yTransTL = 0;
-    private int xTransTR = 0, yTransTR = 0;
-    private int xTransBL = 0, yTransBL = 0;
-    private int xTransBR = 0, yTransBR = 0;
-    private float factorScaleS = 1f, factorScaleP = 0;
+    private int direction = DEFAULT_DIRECTION;
+    private int renderMode = DEFAULT_RENDER_MODE;
+    private long animDuration = ANIM_SPEED, iconFadeDuration = ICON_FADE_SPEED;
+    private int interpolator = DEFAULT_INTERPOLATOR;
+    private boolean springAnimation = false;
+    private float springStiffness = SPRING_STIFFNESS, springDampingRatio = SPRING_DAMPING_RATIO;
+    private int motionPolicy = DEFAULT_MOTION;
+    // Motion the last open or close ran with, MOTION_SYSTEM resolved
+    private int activeMotion = MOTION_FULL;
+    // Shared by every menu of the same color, only the icon paint fades per menu
+    private MenuStyle style;
+    private Paint paintIcons;
+    private boolean showSquareShadows = false;
+    private Bitmap bgShadow = null;
+    private Bitmap[] squareShadowBitmaps = new Bitmap[0];
+    // Layout the shadows were picked for
+    private int shadowWidth = 0, shadowHeight = 0, shadowGridSize = 0, shadowDirection = -1;
+
+    private final ArrayList<SquareMenuItem> menuItems = new ArrayList<SquareMenuItem>();
+    // Config the items come from, null once they are set any other way
+    private MenuConfig boundConfig = null;
+    private String iconAtlasKey = null;
+    private IconAtlas iconAtlas = null;
+    private RectF[] iconBounds = new RectF[0];
+    private final MenuGeometry geometry = new MenuGeometry(FAB_MARGIN, MARGIN_BW_SQUARES, FAB_ICON_PADDING);
+    private Matrix[] squareMatrices = new Matrix[0];
+    // Child views of the layers render mode, null in the other modes
+    private MenuLayers layers = null;
+    // Scratch for the transform or the bounds of one square
+    private final float[] squareTransform = new float[4];
+
+    private float menuProgress = 0;
+    private final RectF lastSquareBounds = new RectF(), frameBounds = new RectF();
+    private final RectF dirtyBounds = new RectF();
     private int plusRotationDegree = 0;
     private int alphaAmount = 0;
-    private ValueAnimator scaleFAB, rotatePlus, alphaIcon;
+    private SquareMenuGroup group = null;
+    private float frameRate = 0;
+    private int updateDepth = 0;
+    private int pendingChanges = 0;
+
+    // Resources of the open menu, built on first open and released after idleReleaseDelay
+    private MenuAnimator menuAnimator = null;
+    private long idleReleaseDelay = NO_IDLE_RELEASE;
+    private final Runnable releaseOpenResources = new Runnable() {
+        @Override
+        public void run() {
+            releaseOpenResources();
+        }
+    };
+    private final MenuAnimator.Callback animatorCallback = new MenuAnimator.Callback() {
+        @Override
+        public void onMenuAnimationUpdate(float progress, float iconProgress) {
+            applyMenuProgress(progress, iconProgress);
+        }
+
+        @Override
+        public void onMenuAnimationSettled(boolean opened) {
+            if(metrics != null) metrics.onAnimationEnd();
+            if(layers != null) layers.land(geometry, opened ? 1f : 0f, INTERPOLATORS[interpolator], OPEN_ROTATION,
+                    opened ? alphaAmount / 255f : 0f);
+            if(!opened) {
+                // Setup Background and Foreground Shadow
+                showSquareShadows = false;
+                invalidateMenu();
+                if(idleReleaseDelay >= 0) postDelayed(releaseOpenResources, idleReleaseDelay);
+            }
+        }
+    };
+
+    private final IconLoader.Callback iconCallback = new IconLoader.Callback() {
+        @Override
+        public void onIconsLoaded(String key, IconAtlas atlas) {
+            if(!key.equals(iconAtlasKey)) return;
+            setIconAtlas(atlas);
+        }
+    };
 
     private boolean isOpened = false;
-    private OnMenuClickListener onMenuClickListener = null;
+    // Tracked here as isAttachedToWindow() only exists from API 19
+    private boolean attached = false;
+    private OnMenuItemClickListener onMenuItemClickListener = null;
+    // Cell under the DOWN of the tap being tracked
+    private static final int NO_TOUCH = Integer.MIN_VALUE;
+    private int touchDownCell = NO_TOUCH;
+    private float touchDownX, touchDownY;
+    private final int touchSlop;
+    // Frame timing, null unless enabled
+    private SquareMenuMetrics metrics = null;
+
+    // Item click waiting for the next frame, when dispatch is deferred
+    private static final int NO_PENDING_CLICK = -1;
+    private boolean deferClickDispatch = false;
+    private int pendingClick = NO_PENDING_CLICK;
+    private boolean pendingClose = false;
+    private final Runnable dispatchPendingClick = new Runnable() {
+        @Override
+        public void run() {
+            flushPendingClick();
+        }
+    };
+    private final Runnable postPendingClick = new Runnable() {
+        @Override
+        public void run() {
+            // Runs while the next frame animates, dispatch right after it is drawn
+            post(dispatchPendingClick);
+        }
+    };
 
     public SquareMenu(Context context, AttributeSet attrs) {
         super(context, attrs);
+        touchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
+        // Draws the menu itself, the layers render mode only adds children on top
+        setWillNotDraw(false);
         setupAttributes(attrs);
-        setupPaint();
+        applyLayerType();
     }
 
     private void setupAttributes(AttributeSet attrs) {
         // Obtain a typed array of attributes
         TypedArray a = getContext().getTheme().obtainStyledAttributes(attrs, R.styleable.SquareMenu, 0, 0);
         // Extract custom attributes into member variables
-        Drawable iconM1, iconM2, iconM3;
         try {
             autoClose = a.getBoolean(R.styleable.SquareMenu_autoClose, false);
+            deferClickDispatch = a.getBoolean(R.styleable.SquareMenu_deferClickDispatch, false);
             fabColor = a.getColor(R.styleable.SquareMenu_fabColor, FAB_COLOR);
             fabWidth = fabHeight = a.getInteger(R.styleable.SquareMenu_squareFabSize, FAB_SIZE);
-            menuOpenDirection = a.getString(R.styleable.SquareMenu_menuOpenDirection);
-            if(menuOpenDirection == null) menuOpenDirection =  DEFAULT_DIRECTION;
-            iconM1 = a.getDrawable(R.styleable.SquareMenu_iconM1);
-            iconM2 = a.getDrawable(R.styleable.SquareMenu_iconM2);
-            iconM3 = a.getDrawable(R.styleable.SquareMenu_iconM3);
+            direction = parseDirection(a.getString(R.styleable.SquareMenu_menuOpenDirection));
+            renderMode = a.getInt(R.styleable.SquareMenu_renderMode, DEFAULT_RENDER_MODE);
+            animDuration = a.getInteger(R.styleable.SquareMenu_animDuration, (int) ANIM_SPEED);
+            iconFadeDuration = a.getInteger(R.styleable.SquareMenu_iconFadeDuration, (int) ICON_FADE_SPEED);
+            interpolator = a.getInt(R.styleable.SquareMenu_animInterpolator, DEFAULT_INTERPOLATOR);
+            springAnimation = a.getBoolean(R.styleable.SquareMenu_springAnimation, false);
+            springStiffness = a.getFloat(R.styleable.SquareMenu_springStiffness, SPRING_STIFFNESS);
+            springDampingRatio = a.getFloat(R.styleable.SquareMenu_springDampingRatio, SPRING_DAMPING_RATIO);
+            motionPolicy = a.getInt(R.styleable.SquareMenu_motionPolicy, DEFAULT_MOTION);
+            idleReleaseDelay = a.getInteger(R.styleable.SquareMenu_idleReleaseDelay, (int) NO_IDLE_RELEASE);
+            for (int i = 0; i < LEGACY_ITEM_COUNT; i++) {
+                int resId = a.getResourceId(LEGACY_ICON_ATTRS[i], 0);
+                menuItems.add(new SquareMenuItem(i, resId));
+            }
         } finally {
             // TypedArray objects are shared and must be recycled.
             a.recycle();
         }
 
-        if(iconM1 != null) bitmapM1 = ((BitmapDrawable) iconM1).getBitmap();
-        if(iconM2 != null) bitmapM2 = ((BitmapDrawable) iconM2).getBitmap();
-        if(iconM3 != null) bitmapM3 = ((BitmapDrawable) iconM3).getBitmap();
+        onMenuItemsChanged();
     }
 
-    private void setupPaint() {
-        paintIcons = new Paint();
-        paintIcons.setAlpha(0);
+    /**
+     * Sizes the per item tables, then reloads the icons and lays the grid out again.
+     * Icons of a menu that was never opened are only loaded on its first open.
+     */
+    private void onMenuItemsChanged() {
+        int count = menuItems.size();
+        if(iconBounds.length != count) {
+            iconBounds = new RectF[count];
+            for (int i = 0; i < count; i++) iconBounds[i] = new RectF();
+        }
+        iconAtlas = null;
+        iconAtlasKey = null;
+        if(layers != null) layers.setCounts(MenuGeometry.gridSizeFor(count) * MenuGeometry.gridSizeFor(count), count);
+        if(menuAnimator != null) loadIcons();
+        // Only a new grid size changes the measured size
+        onPropertyChanged(MenuGeometry.gridSizeFor(count) != geometry.gridSize ?
+                CHANGE_LAYOUT | CHANGE_GEOMETRY : CHANGE_GEOMETRY);
+    }
+
+    private void onPropertyChanged(int change) {
+        pendingChanges |= change;
+        if(updateDepth == 0) applyPendingChanges();
+    }
+
+    private void applyPendingChanges() {
+        int changes = pendingChanges;
+        pendingChanges = 0;
+        if(changes == 0) return;
+        if((changes & CHANGE_RENDER_MODE) != 0) applyLayerType();
+        // Layers are placed on the geometry by the layout pass
+        if((changes & CHANGE_LAYOUT) != 0 || (layers != null && (changes & CHANGE_GEOMETRY) != 0)) requestLayout();
+        if((changes & CHANGE_GEOMETRY) != 0 && getWidth() > 0) updateGeometry(getWidth(), getHeight());
+        invalidateMenu();
+    }
+
+    /**
+     * Redraws the menu, and in the layers render mode the layers whose content changed.
+     */
+    private void invalidateMenu() {
+        invalidate();
+        if(layers != null) updateLayers();
+    }
+
+    private void updateLayers() {
+        if(style == null) style = MenuStyle.obtain(fabColor);
+        if(layers.setContent(style, squareShadowBitmaps, showSquareShadows, iconAtlas)) invalidate();
+        // A run handed to the layers moves them by itself
+        if(!layers.isAnimating())
+            layers.update(geometry, menuProgress, plusRotationDegree, isOpened ? alphaAmount / 255f : 0f);
+    }
+
+    /**
+     * In the layers render mode a timed run is played by the view property animators of
+     * the layers, on the render thread from API 21, so a busy UI thread does not freeze
+     * it. The menu clock still runs for the icon paint, the metrics and the listener.
+     * A spring needs the clock every frame, so it moves the layers frame by frame.
+     */
+    private void handOffToLayers(boolean open) {
+        if(layers == null) return;
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP && isHardwareAccelerated()
+                && menuAnimator.isRunning() && !menuAnimator.isSpringRun()) {
+            layers.animateTo(geometry, menuAnimator.getProgress(), open ? 1f : 0f, menuAnimator.getMoveDurationTo(open),
+                    INTERPOLATORS[interpolator], OPEN_ROTATION, isOpened ? alphaAmount / 255f : 0f,
+                    open ? 1f : 0f, menuAnimator.getIconDurationTo(open));
+        }
+        else if(layers.isAnimating()) {
+            layers.cancelAnimation();
+            updateLayers();
+        }
+    }
+
+    /**
+     * Starts a batch of property changes: until the matching {@link #endUpdate()} the
+     * setters only record what they affect. Batches can be nested.
+     */
+    public void beginUpdate() {
+        updateDepth++;
+    }
+
+    /**
+     * Ends a batch of property changes, then lays out and redraws once for all of them,
+     * and only as far as they need it.
+     */
+    public void endUpdate() {
+        if(updateDepth == 0) return;
+        if(--updateDepth == 0) applyPendingChanges();
+    }
 
-        paintFAB = new Paint();
-        paintFAB.setStyle(Paint.Style.FILL);
-        paintFAB.setColor(fabColor);
-        paintFAB.setShadowLayer(0, 0, 0, Color.BLACK);
-        // Important for certain APIs
-        setLayerType(LAYER_TYPE_SOFTWARE, paintFAB);
+    /**
+     * Icons are rasterized into one atlas, in the background when they are all resources.
+     * They are only drawn once the menu opens.
+     */
+    private void loadIcons() {
+        iconAtlas = null;
+        iconAtlasKey = null;
+        if(boundConfig != null) {
+            // Shared by every menu bound to the config
+            if(boundConfig.hasDrawables)
+                setIconAtlas(boundConfig.getDrawableAtlas(getResources(), getContext().getTheme(), fabWidth));
+            else {
+                iconAtlasKey = boundConfig.getIconKey(fabWidth);
+                IconLoader.load(getResources(), getContext().getTheme(), iconAtlasKey, boundConfig.resIds,
+                        fabWidth, iconCallback);
+            }
+            return;
+        }
 
-        paintFabBGWidShadow = new Paint();
-        paintFabBGWidShadow.setStyle(Paint.Style.FILL);
-        paintFabBGWidShadow.setColor(Color.GREEN);
-        paintFabBGWidShadow.setShadowLayer(5, 1, 1, Color.BLACK);
-        setLayerType(LAYER_TYPE_SOFTWARE, paintFabBGWidShadow);
+        int count = menuItems.size();
+        boolean hasDrawables = false;
+        for (SquareMenuItem item : menuItems) hasDrawables |= item.getIcon() != null;
 
-        paintFabBGWithoutShadow = new Paint();
-        paintFabBGWithoutShadow.setStyle(Paint.Style.FILL);
-        paintFabBGWithoutShadow.setColor(Color.TRANSPARENT);
+        if(hasDrawables) {
+            setIconAtlas(IconAtlas.build(menuItems, getResources(), getContext().getTheme(), fabWidth));
+        }
+        else {
+            int[] resIds = new int[count];
+            for (int i = 0; i < count; i++) resIds[i] = menuItems.get(i).getIconResId();
+            iconAtlasKey = IconLoader.key(resIds, fabWidth);
+            IconLoader.load(getResources(), getContext().getTheme(), iconAtlasKey, resIds, fabWidth, iconCallback);
+        }
+    }
 
-        paintFabBG = paintFabBGWidShadow;
+    private void setIconAtlas(IconAtlas atlas) {
+        iconAtlas = atlas;
+        updateIconBounds();
+        // The icon layers are placed on the new bounds, the icons only show while open
+        int change = isOpened ? CHANGE_PAINT : 0;
+        if(layers != null) change |= CHANGE_LAYOUT;
+        if(change != 0) onPropertyChanged(change);
+    }
 
-        paintFabPlus = new Paint();
-        paintFabPlus.setColor(Color.WHITE);
-        paintFabPlus.setAntiAlias(true);
-        paintFabPlus.setStrokeWidth(FAB_ICON_WIDTH);
+    /**
+     * Centers every icon of the atlas on its menu square.
+     */
+    private void updateIconBounds() {
+        // Wait for the next layout pass when the grid does not fit the items yet
+        if(iconAtlas == null || geometry.iconCenters.length < 2*iconBounds.length) return;
+        for (int i = 0; i < iconBounds.length; i++) {
+            Rect src = iconAtlas.getBounds(i);
+            if(src == null) continue;
+            // imageStartX = (rectStartX + (rectWidth/2)) - (imageWidth/2);
+            float left = geometry.iconCenters[2*i] - src.width()/2;
+            float top = geometry.iconCenters[2*i + 1] - src.height()/2;
+            iconBounds[i].set(left, top, left + src.width(), top + src.height());
+        }
+    }
+
+    /**
+     * Builds what only an open or opening menu needs: the animator, the icons and the
+     * square shadows. Does nothing when they are already there.
+     */
+    private void ensureOpenResources() {
+        removeCallbacks(releaseOpenResources);
+        if(menuAnimator != null) return;
+        paintIcons = new Paint();
+        paintIcons.setAlpha(alphaAmount);
+        menuAnimator = new MenuAnimator(animatorCallback, animDuration, iconFadeDuration,
+                INTERPOLATORS[interpolator], springStiffness, springDampingRatio);
+        menuAnimator.setSpringEnabled(springAnimation);
+        menuAnimator.setFrameRate(frameRate);
+        if(group != null) menuAnimator.setGroup(group);
+        loadIcons();
+        // Pick the square shadows too on the next lookup
+        shadowWidth = 0;
+        if(getWidth() > 0) updateShadows();
+    }
+
+    /**
+     * Drops the open resources of a closed menu. The icons and shadows stay in their
+     * shared caches, so opening again is cheap.
+     */
+    private void releaseOpenResources() {
+        if(menuAnimator == null || isOpened || menuAnimator.isRunning()) return;
+        menuAnimator = null;
+        paintIcons = null;
+        iconAtlas = null;
+        iconAtlasKey = null;
+        Arrays.fill(squareShadowBitmaps, null);
+    }
+
+    /**
+     * Shadows are pre-rendered bitmaps, so the hardware render mode works on every API level.
+     * The layers render mode adds its child views, the others drop them.
+     */
+    private void applyLayerType() {
+        if(renderMode == RENDER_MODE_SOFTWARE)
+            setLayerType(LAYER_TYPE_SOFTWARE, null);
+        else
+            setLayerType(LAYER_TYPE_NONE, null);
+        if(renderMode == RENDER_MODE_LAYERS && layers == null) {
+            layers = new MenuLayers(this);
+            int count = menuItems.size();
+            layers.setCounts(MenuGeometry.gridSizeFor(count) * MenuGeometry.gridSizeFor(count), count);
+        }
+        else if(renderMode != RENDER_MODE_LAYERS && layers != null) {
+            layers.clear();
+            layers = null;
+        }
     }
 
     @Override
@@ -128,11 +467,12 @@ public class SquareMenu extends View {
         // Defines the extra padding for the shape name text
 
         // Resolve the width based on our minimum and the measure spec
-        int minw = 2*fabWidth + getPaddingLeft() + getPaddingRight() + FAB_MARGIN ;
+        int gridSize = MenuGeometry.gridSizeFor(menuItems.size());
+        int minw = gridSize*fabWidth + getPaddingLeft() + getPaddingRight() + FAB_MARGIN ;
         int w = resolveSizeAndState(minw, widthMeasureSpec, 0);
 
         // Ask for a height that would let the view get as big as it can
-        int minh = 2*fabHeight + getPaddingBottom() + getPaddingTop() +FAB_MARGIN ;
+        int minh = gridSize*fabHeight + getPaddingBottom() + getPaddingTop() +FAB_MARGIN ;
 
         int h = resolveSizeAndState(minh, heightMeasureSpec, 0);
         // Calling this method determines the measured width and height
@@ -141,508 +481,697 @@ public class SquareMenu extends View {
     }
 
     @Override
-    protected void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
-
-       // Draw Squares
-        if(menuOpenDirection.equals(TOP_LEFT))
-            drawSquares4TopLeftMenu(canvas);
-        else
-            drawSquares4TopRightMenu(canvas);
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        updateGeometry(w, h);
     }
 
-    private void drawSquares4TopRightMenu(Canvas canvas){
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        // Only the layers render mode has children
+        if(layers == null) return;
+        if(style == null) style = MenuStyle.obtain(fabColor);
+        if(layers.setContent(style, squareShadowBitmaps, showSquareShadows, iconAtlas)) invalidate();
+        layers.layout(geometry, ShadowCache.padding(SQUARE_SHADOW_RADIUS, 0, 0), iconBounds);
+        updateLayers();
+        // The squares run to new places, from where the clock is now
+        if(layers.isAnimating()) handOffToLayers(isOpened);
+    }
 
-        // Draw BG Rect
-        canvas.drawRect(0, fabHeight, fabWidth, getMeasuredHeight()-FAB_MARGIN, paintFabBG);
+    @Override
+    public boolean shouldDelayChildPressedState() {
+        // Not a scrolling container, and the layers never take a touch
+        return false;
+    }
 
-        canvas.save();
-        canvas.translate(xTransTR, yTransTR); //-(fabWidth/6-factorScaleP)
-        canvas.scale(factorScaleS, factorScaleS, fabWidth/2 , fabHeight+factorScaleP);
-        // Top Right Rect
-        canvas.drawRect(fabWidth, fabHeight, fabWidth/2, fabHeight*1.5f, paintFAB);
-        canvas.restore();
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        attached = true;
+        updateAnimatorVisibility();
+        updateFrameRate();
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH) CacheTrimmer.onMenuAttached(getContext());
+    }
 
-        canvas.save();
-        canvas.translate(xTransTL, yTransTL);
-        canvas.scale(factorScaleS, factorScaleS, 0, fabHeight+factorScaleP);
-        // Top Left Rect
-        canvas.drawRect(0, fabHeight, fabWidth/2, fabHeight*1.5f, paintFAB);
-        canvas.restore();
+    @Override
+    protected void onDetachedFromWindow() {
+        // Nothing may keep calling back into a detached view
+        attached = false;
+        updateAnimatorVisibility();
+        flushPendingClick();
+        removeCallbacks(dispatchPendingClick);
+        removeCallbacks(postPendingClick);
+        removeCallbacks(releaseOpenResources);
+        touchDownCell = NO_TOUCH;
+        if(idleReleaseDelay >= 0) releaseOpenResources();
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH) CacheTrimmer.onMenuDetached(getContext());
+        super.onDetachedFromWindow();
+    }
 
-        canvas.save();
-        canvas.translate(xTransBR, yTransBR);
-        canvas.scale(factorScaleS, factorScaleS, fabWidth/2, fabHeight*1.5f+factorScaleP);
-        // Bottom Right Rect
-        canvas.drawRect(fabWidth/2, fabHeight*1.5f, fabWidth, getMeasuredHeight()-FAB_MARGIN, paintFAB);
-        canvas.restore();
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateAnimatorVisibility();
+    }
 
-        canvas.save();
-        canvas.scale(factorScaleS, factorScaleS, 0, fabHeight*1.5f+factorScaleP);
-        // Bottom Right Rect
-        canvas.drawRect(0, fabHeight*1.5f, fabWidth/2, getMeasuredHeight()-FAB_MARGIN, paintFAB);
-        canvas.restore();
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateAnimatorVisibility();
+    }
 
-        // Draw PLUS
-        drawPlusIcon(canvas,  FAB_ICON_PADDING, fabHeight*1.5f,  fabWidth-(2*FAB_ICON_PADDING), plusRotationDegree);
+    /**
+     * A menu nobody can see skips to where it is heading instead of animating, for the
+     * run in flight and for every open or close until it shows again.
+     */
+    private void updateAnimatorVisibility() {
+        if(menuAnimator != null)
+            menuAnimator.setVisible(attached && getWindowVisibility() == VISIBLE && isShown());
+    }
 
-        // Draw Menus icon
-        if( isOpened ) drawTopRightMenuIcons(canvas);
+    /**
+     * Samples the easing and measures dropped frames at the refresh rate of the display.
+     */
+    private void updateFrameRate() {
+        WindowManager wm = (WindowManager) getContext().getSystemService(Context.WINDOW_SERVICE);
+        if(wm == null) return;
+        frameRate = wm.getDefaultDisplay().getRefreshRate();
+        if(frameRate <= 0) return;
+        if(menuAnimator != null) menuAnimator.setFrameRate(frameRate);
+        if(metrics != null) metrics.setFrameIntervalNanos((long) (1000000000L / frameRate));
     }
 
-    private void drawSquares4TopLeftMenu(Canvas canvas){
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        SavedState state = new SavedState(super.onSaveInstanceState());
+        state.opened = isOpened;
+        if(menuAnimator != null) {
+            state.progress = menuAnimator.getProgress();
+            state.iconProgress = menuAnimator.getIconProgress();
+        }
+        return state;
+    }
 
-        // Draw BG Rect
-        canvas.drawRect(fabWidth, fabHeight, getMeasuredWidth()-FAB_MARGIN, getMeasuredHeight()-FAB_MARGIN, paintFabBG);
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if(!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        SavedState saved = (SavedState) state;
+        super.onRestoreInstanceState(saved.getSuperState());
+        isOpened = saved.opened;
+        if(!saved.opened && saved.progress == 0) return;
+        ensureOpenResources();
+        showSquareShadows = true;
+        // Resume from the saved progress, finishing an animation cut short by the restart.
+        // Restored before the window shows, it lands straight on the end state
+        updateAnimatorVisibility();
+        menuAnimator.jumpTo(saved.progress, saved.iconProgress, saved.opened);
+        if(!menuAnimator.isSettled()) menuAnimator.animateTo(isOpened);
+    }
 
-        canvas.save();
-        canvas.translate(xTransTL, yTransTL);
-        canvas.scale(factorScaleS, factorScaleS, fabWidth+factorScaleP, fabHeight+factorScaleP);
-        // Top Left Rect
-        canvas.drawRect(fabWidth, fabHeight, fabWidth*1.5f, fabHeight*1.5f, paintFAB);
-        canvas.restore();
+    /**
+     * Lays the grid out for the current direction, size and items, so that onDraw only
+     * has to apply the animated transform of every square.
+     */
+    private void updateGeometry(int w, int h) {
+        geometry.layout(w, h, fabWidth, fabHeight, DIRECTION_X[direction], DIRECTION_Y[direction], menuItems.size());
+        if(squareMatrices.length != geometry.squareCount) {
+            squareMatrices = new Matrix[geometry.squareCount];
+            for (int i = 0; i < squareMatrices.length; i++) squareMatrices[i] = new Matrix();
+        }
+        updateSquareMatrices();
+        updateIconBounds();
+        updateShadows();
+        // A layout change redraws everything, the next frame starts from the new squares
+        lastSquareBounds.setEmpty();
+    }
 
-        canvas.save();
-        canvas.translate(xTransTR, yTransTR);
-        canvas.scale(factorScaleS, factorScaleS, fabWidth*1.5f+factorScaleP, fabHeight+factorScaleP);
-        // Top Right Rect
-        canvas.drawRect(fabWidth*1.5f, fabHeight, getMeasuredWidth()-FAB_MARGIN, fabHeight*1.5f, paintFAB);
-        canvas.restore();
+    /**
+     * Picks the pre-rendered shadow of every square and of the BG rect for the new layout.
+     */
+    private void updateShadows() {
+        if(shadowWidth == getWidth() && shadowHeight == getHeight() && shadowGridSize == geometry.gridSize
+                && shadowDirection == direction) return;
+        shadowWidth = getWidth();
+        shadowHeight = getHeight();
+        shadowGridSize = geometry.gridSize;
+        shadowDirection = direction;
+        if(layers != null) layers.invalidateSquares();
+        float[] bg = geometry.background;
+        bgShadow = ShadowCache.get(Math.round(bg[2] - bg[0]), Math.round(bg[3] - bg[1]),
+                BG_SHADOW_RADIUS, BG_SHADOW_OFFSET, BG_SHADOW_OFFSET);
+        if(squareShadowBitmaps.length != geometry.squareCount)
+            squareShadowBitmaps = new Bitmap[geometry.squareCount];
+        // Square shadows are only drawn by the full motion
+        if(menuAnimator == null || activeMotion != MOTION_FULL) return;
+        float[] squares = geometry.squares;
+        for (int i = 0; i < squareShadowBitmaps.length; i++) {
+            int g = i * MenuGeometry.SQUARE_STRIDE;
+            squareShadowBitmaps[i] = ShadowCache.get(Math.round(squares[g + 2] - squares[g]),
+                    Math.round(squares[g + 3] - squares[g + 1]), SQUARE_SHADOW_RADIUS, 0, 0);
+        }
+    }
 
-        canvas.save();
-        canvas.translate(xTransBL, yTransBL);
-        canvas.scale(factorScaleS, factorScaleS, fabWidth+factorScaleP, fabHeight*1.5f+factorScaleP);
-        // Bottom Left Rect
-        canvas.drawRect(fabWidth, fabHeight*1.5f, fabWidth*1.5f, getMeasuredHeight()-FAB_MARGIN, paintFAB);
-        canvas.restore();
+    /**
+     * Updates the per square matrices in place from the geometry table and the animated progress.
+     */
+    private void updateSquareMatrices() {
+        for (int i = 0; i < squareMatrices.length; i++) {
+            geometry.transform(i, menuProgress, squareTransform);
+            Matrix matrix = squareMatrices[i];
+            matrix.setScale(squareTransform[0], squareTransform[1]);
+            matrix.postTranslate(squareTransform[2], squareTransform[3]);
+        }
+    }
 
-        canvas.save();
-        canvas.scale(factorScaleS, factorScaleS, fabWidth*1.5f+factorScaleP, fabHeight*1.5f+factorScaleP);
-        // Bottom Right Rect
-        canvas.drawRect(fabWidth*1.5f, fabHeight*1.5f, getMeasuredWidth()-FAB_MARGIN, getMeasuredHeight()-FAB_MARGIN, paintFAB);
-        canvas.restore();
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if(style == null) style = MenuStyle.obtain(fabColor);
+        long drawStart = metrics != null ? System.nanoTime() : 0;
+
+        // Draw BG Shadow, the squares cover the BG rect itself
+        if(!showSquareShadows && bgShadow != null) {
+            float[] bg = geometry.background;
+            int pad = ShadowCache.padding(BG_SHADOW_RADIUS, BG_SHADOW_OFFSET, BG_SHADOW_OFFSET);
+            canvas.drawBitmap(bgShadow, bg[0] - pad, bg[1] - pad, style.shadow);
+        }
+        // The layers draw the rest, and time their frames when they animate
+        if(layers != null) return;
+
+        // Draw Squares
+        float[] squares = geometry.squares;
+        int pad = ShadowCache.padding(SQUARE_SHADOW_RADIUS, 0, 0);
+        for (int i = 0; i < squareMatrices.length; i++) {
+            int g = i * MenuGeometry.SQUARE_STRIDE;
+            canvas.save();
+            canvas.concat(squareMatrices[i]);
+            if(showSquareShadows && squareShadowBitmaps[i] != null)
+                canvas.drawBitmap(squareShadowBitmaps[i], squares[g] - pad, squares[g + 1] - pad, style.shadow);
+            canvas.drawRect(squares[g], squares[g + 1], squares[g + 2], squares[g + 3], style.fab);
+            canvas.restore();
+        }
 
         // Draw PLUS
-        drawPlusIcon(canvas, fabWidth+FAB_ICON_PADDING, fabHeight*1.5f, fabWidth-(2*FAB_ICON_PADDING), plusRotationDegree);
+        float[] plus = geometry.plus;
+        drawPlusIcon(canvas, plus[0], plus[1], plus[2], plusRotationDegree);
 
         // Draw Menus icon
-        if( isOpened ) drawTopLeftMenuIcons(canvas);
+        if( isOpened ) drawMenuIcons(canvas);
+
+        if(metrics != null) metrics.onFrameDrawn(drawStart, System.nanoTime());
     }
 
-    private void drawPlusIcon(Canvas canvas, float startX, float startY, int size, int rotateDegree) {
+    private void drawPlusIcon(Canvas canvas, float startX, float startY, float size, int rotateDegree) {
         canvas.save();
         canvas.rotate(rotateDegree, startX + size / 2, startY);
-        canvas.drawLine(startX, startY, startX + size, startY, paintFabPlus);
+        canvas.drawLine(startX, startY, startX + size, startY, style.plus);
         canvas.rotate(90, startX + size / 2, startY);
-        canvas.drawLine(startX, startY, startX + size, startY, paintFabPlus);
+        canvas.drawLine(startX, startY, startX + size, startY, style.plus);
         canvas.restore();
     }
 
-    private void drawTopLeftMenuIcons(Canvas canvas){
-        // imageStartX = (rectStartX + (rectWidth/2)) - (imageWidth/2);
-        // imageStartY = (rectStartY + (rectHeight/2)) - (imageHeight/2);
-        int imageStartX,imageStartY;
-        if(bitmapM1 !=null) {
-            imageStartX = (0 + (fabWidth/2)) - (bitmapM1.getWidth()/2);
-            imageStartY = (fabHeight + (fabWidth/2)) - (bitmapM1.getHeight()/2);
-            canvas.drawBitmap(bitmapM1, imageStartX , imageStartY , paintIcons);
-        }
-
-        if(bitmapM2 !=null) {
-            imageStartX = (0 + (fabWidth/2)) - (bitmapM2.getWidth()/2);
-            imageStartY = (0 + (fabHeight/2)) - (bitmapM2.getHeight()/2);
-            canvas.drawBitmap(bitmapM2, imageStartX , imageStartY, paintIcons);
-        }
-
-        if(bitmapM3 !=null) {
-            imageStartX = (fabWidth + (fabWidth/2)) - (bitmapM2.getWidth()/2);
-            imageStartY = (0 + (fabHeight/2)) - (bitmapM2.getHeight()/2);
-            canvas.drawBitmap(bitmapM3, imageStartX , imageStartY, paintIcons);
-        }
-    }
-
-    private void drawTopRightMenuIcons(Canvas canvas){
-        // imageStartX = (rectStartX + (rectWidth/2)) - (imageWidth/2);
-        // imageStartY = (rectStartY + (rectHeight/2)) - (imageHeight/2);
-        int imageStartX,imageStartY;
-        if(bitmapM1 !=null) {
-            imageStartX = (fabWidth + (fabWidth/2)) - (bitmapM1.getWidth()/2);
-            imageStartY = (fabHeight + (fabWidth/2)) - (bitmapM1.getHeight()/2);
-            canvas.drawBitmap(bitmapM1, imageStartX , imageStartY , paintIcons);
-        }
-
-        if(bitmapM2 !=null) {
-            imageStartX = (fabWidth + (fabWidth/2)) - (bitmapM2.getWidth()/2);
-            imageStartY = (0 + (fabHeight/2)) - (bitmapM2.getHeight()/2);
-            canvas.drawBitmap(bitmapM2, imageStartX , imageStartY, paintIcons);
-        }
-
-        if(bitmapM3 !=null) {
-            imageStartX = (0 + (fabWidth/2)) - (bitmapM2.getWidth()/2);
-            imageStartY = (0 + (fabHeight/2)) - (bitmapM2.getHeight()/2);
-            canvas.drawBitmap(bitmapM3, imageStartX , imageStartY, paintIcons);
+    private void drawMenuIcons(Canvas canvas){
+        if(iconAtlas == null) return;
+        for (int i = 0; i < iconBounds.length; i++) {
+            Rect src = iconAtlas.getBounds(i);
+            if(src != null) canvas.drawBitmap(iconAtlas.bitmap, src, iconBounds[i], paintIcons);
         }
     }
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
         boolean result = super.onTouchEvent(event);
-        if (event.getAction() == MotionEvent.ACTION_DOWN) {
-
-            if(menuOpenDirection.equals(TOP_LEFT))
-                 touch4TopLeftMenu(event);
-            else
-                touch4TopRightMenu(event);
-
-            return true;
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                touchDownX = event.getX();
+                touchDownY = event.getY();
+                touchDownCell = geometry.itemAt(touchDownX, touchDownY);
+                // Start loading the icons while the finger is still down
+                if(!isOpened && touchDownCell == MenuGeometry.CELL_FAB) ensureOpenResources();
+                return true;
+            case MotionEvent.ACTION_MOVE:
+                // Dragging away is not a tap, wait for the next DOWN
+                if(touchDownCell != NO_TOUCH && (Math.abs(event.getX() - touchDownX) > touchSlop
+                        || Math.abs(event.getY() - touchDownY) > touchSlop)) touchDownCell = NO_TOUCH;
+                return true;
+            case MotionEvent.ACTION_UP:
+                int cell = touchDownCell;
+                touchDownCell = NO_TOUCH;
+                if(cell != NO_TOUCH && geometry.itemAt(event.getX(), event.getY()) == cell) {
+                    if(metrics != null) metrics.onTouch(System.nanoTime());
+                    touchMenu(cell);
+                }
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                touchDownCell = NO_TOUCH;
+                return true;
         }
         return result;
     }
 
-    private void touch4TopLeftMenu(MotionEvent event) {
+    /**
+     * Acts on a tap confirmed on UP. A tap while the menu is still animating retargets
+     * the running animation from where it is, so fast taps never stack animations.
+     */
+    private void touchMenu(int item) {
         if(!isOpened) {
-            if(event.getX() > fabWidth && event.getY() > fabHeight) {
+            if(item == MenuGeometry.CELL_FAB) {
                 isOpened = true;
-                startAnimationTopLeftMenu();
-                if(onMenuClickListener!=null)onMenuClickListener.onMenuOpen();
+                if(group != null) group.onMenuOpening(this);
+                startMenuAnimation();
+                if(onMenuItemClickListener!=null)onMenuItemClickListener.onMenuOpen();
             }
         }
-        else {
-            // Touch of BOTTOM_RIGHT
-            if(event.getX() > fabWidth && event.getY() > fabHeight) {
-                closeTopLeftM();
-            }
-            // Touch of TOP-LEFT
-            else if(event.getX() < fabWidth && event.getY() < fabHeight) {
-                if(onMenuClickListener!=null)onMenuClickListener.onClickMenu2();
-                if(autoClose)closeTopLeftM();
-            }
-            // Touch of TOP-RIGHT
-            else if(event.getX() > fabWidth && event.getY() < fabHeight) {
-                if(onMenuClickListener!=null)onMenuClickListener.onClickMenu3();
-                if(autoClose)closeTopLeftM();
-            }
-            // Touch of BOTTOM-LEFT
-            else if(event.getX() < fabWidth && event.getY() > fabHeight) {
-                if(onMenuClickListener!=null)onMenuClickListener.onClickMenu1();
-                if(autoClose)closeTopLeftM();
+        else if(item == MenuGeometry.CELL_FAB) {
+            closeMenu();
+        }
+        else if(item >= 0) {
+            // Start closing before the click handler runs, so it can not delay the animation
+            if(autoClose) {
+                isOpened = false;
+                resetMenuAnimation();
             }
+            dispatchItemClick(item, autoClose);
         }
     }
 
-    private void closeTopLeftM(){
+    private void closeMenu(){
         isOpened = false;
-        resetAnimationTopLeftMenu();
-        if(onMenuClickListener!=null)onMenuClickListener.onMenuClose();
+        resetMenuAnimation();
+        if(onMenuItemClickListener!=null)onMenuItemClickListener.onMenuClose();
     }
 
-    private void touch4TopRightMenu(MotionEvent event) {
-        Log.i(TAG, "touch4TopRightMenu");
-        if(!isOpened) {
-            if(event.getX() < fabWidth && event.getY() > fabHeight) {
-                isOpened = true;
-                startAnimationTopRightMenu();
-                if(onMenuClickListener!=null)onMenuClickListener.onMenuOpen();
-            }
-        }
-        else {
-            // Touch of BOTTOM_LEFT
-            if(event.getX() < fabWidth && event.getY() > fabHeight) {
-                closeTopRightM();
-            }
-            // Touch of TOP-RIGHT
-            else if(event.getX() > fabWidth && event.getY() < fabHeight) {
-                if(onMenuClickListener!=null)onMenuClickListener.onClickMenu2();
-                if(autoClose) closeTopRightM();
-            }
-            // Touch of TOP-LEFT
-            else if(event.getX() < fabWidth && event.getY() < fabHeight) {
-                if(onMenuClickListener!=null)onMenuClickListener.onClickMenu3();
-                if(autoClose) closeTopRightM();
-            }
-            // Touch of BOTTOM-RIGHT
-            else if(event.getX() > fabWidth && event.getY() > fabHeight) {
-                if(onMenuClickListener!=null)onMenuClickListener.onClickMenu1();
-                if(autoClose) closeTopRightM();
-            }
+    /**
+     * Hands the click to the listener now, or after the next frame when dispatch is deferred.
+     */
+    private void dispatchItemClick(int index, boolean closed) {
+        if(onMenuItemClickListener == null) return;
+        if(!deferClickDispatch) {
+            onMenuItemClickListener.onItemClick(index, menuItems.get(index).getId());
+            if(closed) onMenuItemClickListener.onMenuClose();
+            return;
         }
+        flushPendingClick();
+        pendingClick = index;
+        pendingClose = closed;
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN)
+            postOnAnimation(postPendingClick);
+        else
+            post(dispatchPendingClick);
     }
 
-    private void closeTopRightM(){
-        isOpened = false;
-        resetAnimationTopRightMenu();
-        if(onMenuClickListener!=null)onMenuClickListener.onMenuClose();
+    private void flushPendingClick() {
+        int index = pendingClick;
+        pendingClick = NO_PENDING_CLICK;
+        if(index == NO_PENDING_CLICK || onMenuItemClickListener == null) return;
+        if(index < menuItems.size()) onMenuItemClickListener.onItemClick(index, menuItems.get(index).getId());
+        if(pendingClose) onMenuItemClickListener.onMenuClose();
     }
 
-    private void startAnimationTopRightMenu() {
+    private void startMenuAnimation() {
+        ensureOpenResources();
+        updateAnimatorVisibility();
+        applyMotionPolicy();
         // Setup Background and Foreground Shadow
-        paintFabBG = paintFabBGWithoutShadow;
-        paintFAB.setShadowLayer(2,0,0,Color.BLACK);
-
-        AnimatorSet fabsAnimSet = new AnimatorSet();
-        ValueAnimator moveTR = ValueAnimator.ofInt(0, (fabWidth/2)+MARGIN_BW_SQUARES);
-        moveTR.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-
-                xTransTR = (int)animation.getAnimatedValue();
-                // To convert xTransTR value in negative
-                yTransTR = xTransTR - 2*xTransTR;
-                invalidate();
-            }
-        });
-
-        ValueAnimator moveTL = ValueAnimator.ofInt(0, -(fabWidth/2)-MARGIN_BW_SQUARES);
-        moveTL.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                yTransTL = (int)animation.getAnimatedValue();
-                invalidate();
-            }
-        });
-
-        ValueAnimator moveBR = ValueAnimator.ofInt(0, (fabWidth/2)+MARGIN_BW_SQUARES);
-        moveBR.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                xTransBR = (int)animation.getAnimatedValue();
-                invalidate();
-            }
-        });
-
-        scaleFAB = ValueAnimator.ofFloat(1f, 1.9f);
-        scaleFAB.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                factorScaleS = (float)animation.getAnimatedValue();
-                factorScaleP = fabWidth/2;
-                invalidate();
-            }
-        });
-
-        rotatePlus = ValueAnimator.ofInt(0, 45);
-        rotatePlus.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                plusRotationDegree = (int)animation.getAnimatedValue();
-                invalidate();
-            }
-        });
+        showSquareShadows = true;
+        if(metrics != null) metrics.onAnimationStart(menuAnimator.getMoveDurationTo(true));
+        menuAnimator.animateTo(true);
+        handOffToLayers(true);
+    }
 
-        alphaIcon = ValueAnimator.ofInt(0, 255);
-        alphaIcon.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                alphaAmount = (int)animation.getAnimatedValue();
-                paintIcons.setAlpha(alphaAmount);
-                invalidate();
-            }
-        });
-        alphaIcon.setDuration(1000);
-        alphaIcon.start();
+    private void resetMenuAnimation() {
+        ensureOpenResources();
+        updateAnimatorVisibility();
+        applyMotionPolicy();
+        if(metrics != null) metrics.onAnimationStart(menuAnimator.getMoveDurationTo(false));
+        menuAnimator.animateTo(false);
+        handOffToLayers(false);
+    }
 
-        fabsAnimSet.playTogether(moveTR, moveTL, moveBR,  scaleFAB, rotatePlus);
-        fabsAnimSet.setDuration(ANIM_SPEED);
-        fabsAnimSet.setInterpolator(new LinearInterpolator());
-        fabsAnimSet.start();
+    /**
+     * Sets the animator up for the motion policy, following the system settings as they
+     * are at the start of every open or close when the policy is {@link #MOTION_SYSTEM}.
+     */
+    private void applyMotionPolicy() {
+        int motion = motionPolicy;
+        float scale = 1f;
+        if(motion == MOTION_SYSTEM) {
+            scale = systemAnimatorScale();
+            motion = scale == 0f ? MOTION_NONE : isPowerSaveMode() ? MOTION_REDUCED : MOTION_FULL;
+        }
+        switch (motion) {
+            case MOTION_NONE:
+                menuAnimator.setDurations(0, 0);
+                menuAnimator.setSpringEnabled(false);
+                break;
+            case MOTION_REDUCED:
+                menuAnimator.setDurations(0, REDUCED_ICON_FADE);
+                menuAnimator.setSpringEnabled(false);
+                break;
+            default:
+                menuAnimator.setDurations((long) (animDuration * scale), (long) (iconFadeDuration * scale));
+                menuAnimator.setSpringEnabled(springAnimation);
+                menuAnimator.setSpring(springStiffness, springDampingRatio);
+                break;
+        }
+        if(motion == activeMotion) return;
+        activeMotion = motion;
+        if(motion == MOTION_FULL) {
+            shadowWidth = 0;
+            if(getWidth() > 0) updateShadows();
+        }
+        else {
+            Arrays.fill(squareShadowBitmaps, null);
+            if(layers != null) layers.invalidateSquares();
+        }
+    }
 
+    private float systemAnimatorScale() {
+        ContentResolver resolver = getContext().getContentResolver();
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1)
+            return Settings.Global.getFloat(resolver, Settings.Global.ANIMATOR_DURATION_SCALE, 1f);
+        return 1f;
+    }
 
+    private boolean isPowerSaveMode() {
+        if(Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) return false;
+        PowerManager pm = (PowerManager) getContext().getSystemService(Context.POWER_SERVICE);
+        return pm != null && pm.isPowerSaveMode();
     }
 
-    private void resetAnimationTopRightMenu(){
-        AnimatorSet fabsAnimSet = new AnimatorSet();
-        ValueAnimator moveTR = ValueAnimator.ofInt((fabWidth/2)+MARGIN_BW_SQUARES, 0);
-        moveTR.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
+    private void applyMenuProgress(float progress, float iconProgress) {
+        float lastProgress = menuProgress;
+        int lastAlpha = alphaAmount;
+        menuProgress = progress;
+        if(layers == null) updateSquareMatrices();
+        plusRotationDegree = (int) (OPEN_ROTATION * menuProgress);
+        alphaAmount = (int) (255 * iconProgress);
+        paintIcons.setAlpha(alphaAmount);
+        if(layers == null) {
+            invalidateFrame(menuProgress != lastProgress, alphaAmount != lastAlpha);
+            return;
+        }
+        // Nothing is drawn again, the frame cost is setting the properties of the layers
+        long start = metrics != null ? System.nanoTime() : 0;
+        updateLayers();
+        if(metrics != null) metrics.onFrameDrawn(start, System.nanoTime());
+    }
 
-                xTransTR = (int)animation.getAnimatedValue();
-                // To convert xTransTR value in negative
-                yTransTR = xTransTR - 2*xTransTR;
-                invalidate();
+    /**
+     * Invalidates only what changed this frame: the union of where the squares were drawn
+     * last frame and where they are drawn now, and the icons when their alpha moved.
+     */
+    private void invalidateFrame(boolean squaresMoved, boolean iconsFaded) {
+        dirtyBounds.setEmpty();
+        if(squaresMoved) {
+            dirtyBounds.set(lastSquareBounds);
+            frameBounds.setEmpty();
+            // A square shadow is drawn inside the square matrix, so its padding scales with it
+            int squarePad = ShadowCache.padding(SQUARE_SHADOW_RADIUS, 0, 0);
+            for (int i = 0; i < squareMatrices.length; i++) {
+                geometry.mapSquare(i, menuProgress, squarePad, squareTransform);
+                frameBounds.union(squareTransform[0], squareTransform[1], squareTransform[2], squareTransform[3]);
             }
-        });
+            // The plus icon turns inside the FAB, the BG shadow reaches out of the BG rect
+            float[] bg = geometry.background;
+            int bgPad = ShadowCache.padding(BG_SHADOW_RADIUS, BG_SHADOW_OFFSET, BG_SHADOW_OFFSET);
+            frameBounds.union(bg[0] - bgPad, bg[1] - bgPad, bg[2] + bgPad, bg[3] + bgPad);
+            dirtyBounds.union(frameBounds);
+            lastSquareBounds.set(frameBounds);
+        }
+        if(iconsFaded && iconAtlas != null) {
+            for (RectF icon : iconBounds) dirtyBounds.union(icon);
+        }
+        if(dirtyBounds.isEmpty()) return;
+        invalidate((int) Math.floor(dirtyBounds.left), (int) Math.floor(dirtyBounds.top),
+                (int) Math.ceil(dirtyBounds.right), (int) Math.ceil(dirtyBounds.bottom));
+    }
 
-        ValueAnimator moveTL = ValueAnimator.ofInt(-(fabWidth/2)-MARGIN_BW_SQUARES, 0 );
-        moveTL.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                yTransTL = (int)animation.getAnimatedValue();
-                invalidate();
-            }
-        });
+    static int parseDirection(String name) {
+        for (int i = 0; i < DIRECTION_NAMES.length; i++) {
+            if(DIRECTION_NAMES[i].equals(name)) return i;
+        }
+        return DEFAULT_DIRECTION;
+    }
 
-        ValueAnimator moveBR = ValueAnimator.ofInt((fabWidth/2)+MARGIN_BW_SQUARES, 0);
-        moveBR.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                xTransBR = (int)animation.getAnimatedValue();
-                invalidate();
-            }
-        });
+    static String directionName(int direction) {
+        return DIRECTION_NAMES[direction];
+    }
 
-        scaleFAB.reverse();
-        rotatePlus.reverse();
-        alphaIcon.reverse();
+    /**
+     * @return
+     */
+    public String getMenuOpenDirection() {
+        return DIRECTION_NAMES[direction];
+    }
 
-        fabsAnimSet.addListener(new AnimatorListenerAdapter() {
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                // Setup Background and Foreground Shadow
-                paintFabBG = paintFabBGWidShadow;
-                paintFAB.setShadowLayer(0,0,0,Color.TRANSPARENT);
-            }
-        });
-        fabsAnimSet.playTogether(moveTL, moveTR, moveBR);
-        fabsAnimSet.setDuration(ANIM_SPEED);
-        fabsAnimSet.setInterpolator(new LinearInterpolator());
-        fabsAnimSet.start();
+    /**
+     * @param menuOpenDirection  "top_left", "top_right", "bottom_left" OR "bottom_right",
+     *                           Default direction will be "top_left"
+     */
+    public void setMenuOpenDirection(String menuOpenDirection) {
+        int direction = parseDirection(menuOpenDirection);
+        if(this.direction == direction) return;
+        this.direction = direction;
+        onPropertyChanged(CHANGE_GEOMETRY);
     }
 
-    private void startAnimationTopLeftMenu() {
-        // Setup Background and Foreground Shadow
-        paintFabBG = paintFabBGWithoutShadow;
-        paintFAB.setShadowLayer(2,0,0,Color.BLACK);
+    /**
+     * @param iconM1 drawable resource of the first menu, 0 for none
+     * @param iconM2 drawable resource of the second menu, 0 for none
+     * @param iconM3 drawable resource of the third menu, 0 for none
+     */
+    public void setMenuIcons(int iconM1, int iconM2, int iconM3) {
+        setMenuItems(Arrays.asList(new SquareMenuItem(0, iconM1), new SquareMenuItem(1, iconM2),
+                new SquareMenuItem(2, iconM3)));
+    }
 
-        AnimatorSet fabsAnimSet = new AnimatorSet();
-        ValueAnimator moveTL = ValueAnimator.ofInt(0, -(fabWidth/2)-MARGIN_BW_SQUARES);
-        moveTL.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
+    /**
+     * Any drawable can be used, it is rasterized once at the size of a menu square.
+     *
+     * @param iconM1 icon of the first menu, null for none
+     * @param iconM2 icon of the second menu, null for none
+     * @param iconM3 icon of the third menu, null for none
+     */
+    public void setMenuIcons(Drawable iconM1, Drawable iconM2, Drawable iconM3) {
+        setMenuItems(Arrays.asList(new SquareMenuItem(0, iconM1), new SquareMenuItem(1, iconM2),
+                new SquareMenuItem(2, iconM3)));
+    }
 
-                xTransTL = yTransTL = (int)animation.getAnimatedValue();
-                invalidate();
-            }
-        });
+    /**
+     * Replaces the menu items. The menu grows to the smallest k x k grid of squares
+     * that holds the FAB and every item, 2 x 2 for up to three items.
+     *
+     * @param items menu items, in the order they fill the grid away from the FAB
+     */
+    public void setMenuItems(List<SquareMenuItem> items) {
+        boundConfig = null;
+        menuItems.clear();
+        menuItems.addAll(items);
+        onMenuItemsChanged();
+    }
 
-        ValueAnimator moveTR = ValueAnimator.ofInt(0, -(fabWidth/2)-MARGIN_BW_SQUARES);
-        moveTR.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                yTransTR = (int)animation.getAnimatedValue();
-                invalidate();
-            }
-        });
+    /**
+     * Reconfigures the menu in place from a shared config, for menus recycled in list rows.
+     * Paints are updated rather than rebuilt, and binding a config whose icons were
+     * already loaded allocates nothing.
+     *
+     * @param config items and look of the menu, usually one instance for many rows
+     */
+    public void bind(MenuConfig config) {
+        beginUpdate();
+        autoClose = config.isAutoClose();
+        if(style != config.style) {
+            fabColor = config.getFABColor();
+            style = config.style;
+            onPropertyChanged(CHANGE_PAINT);
+        }
+        if(direction != config.direction) {
+            direction = config.direction;
+            onPropertyChanged(CHANGE_GEOMETRY);
+        }
+        if(boundConfig != config) {
+            boundConfig = config;
+            List<SquareMenuItem> items = config.getItems();
+            menuItems.clear();
+            for (int i = 0; i < items.size(); i++) menuItems.add(items.get(i));
+            onMenuItemsChanged();
+        }
+        endUpdate();
+    }
 
-        ValueAnimator moveBL = ValueAnimator.ofInt(0, -(fabWidth/2)-MARGIN_BW_SQUARES);
-        moveBL.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                xTransBL = (int)animation.getAnimatedValue();
-                invalidate();
-            }
-        });
+    /**
+     * Same as {@link #bind(MenuConfig)}, also replacing the click listener.
+     */
+    public void bind(MenuConfig config, OnMenuItemClickListener listener) {
+        onMenuItemClickListener = listener;
+        bind(config);
+    }
 
-        scaleFAB = ValueAnimator.ofFloat(1f, 1.9f);
-        scaleFAB.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                factorScaleS = (float)animation.getAnimatedValue();
-                factorScaleP = fabWidth/2;
-                invalidate();
-            }
-        });
+    /**
+     * Closes the menu at once and drops the listener and any pending click or touch,
+     * with no callback, so the menu can be recycled and bound again.
+     */
+    public void reset() {
+        onMenuItemClickListener = null;
+        pendingClick = NO_PENDING_CLICK;
+        removeCallbacks(dispatchPendingClick);
+        removeCallbacks(postPendingClick);
+        touchDownCell = NO_TOUCH;
+        setOpened(false, false);
+    }
 
-        rotatePlus = ValueAnimator.ofInt(0, 45);
-        rotatePlus.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                plusRotationDegree = (int)animation.getAnimatedValue();
-                invalidate();
-            }
-        });
+    /**
+     * @return
+     */
+    public List<SquareMenuItem> getMenuItems() {
+        return Collections.unmodifiableList(menuItems);
+    }
 
-        alphaIcon = ValueAnimator.ofInt(0, 255);
-        alphaIcon.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                alphaAmount = (int)animation.getAnimatedValue();
-                paintIcons.setAlpha(alphaAmount);
-                invalidate();
-            }
-        });
-        alphaIcon.setDuration(1000);
-        alphaIcon.start();
+    /**
+     * @return
+     */
+    public int getFABColor() {
+        return fabColor;
+    }
 
-        fabsAnimSet.playTogether(moveTL, moveTR, moveBL, scaleFAB, rotatePlus);
-        fabsAnimSet.setDuration(ANIM_SPEED);
-        fabsAnimSet.start();
+    /**
+     * The color only changes the paint, it never lays the menu out again.
+     *
+     * @param color
+     */
+    public void setFABColor(int color) {
+        if(fabColor == color) return;
+        this.fabColor = color;
+        // Shared paints are never changed, switch to the style of the new color
+        if(style != null) style = MenuStyle.obtain(color);
+        onPropertyChanged(CHANGE_PAINT);
     }
 
-    private void resetAnimationTopLeftMenu(){
-        AnimatorSet fabsAnimSet = new AnimatorSet();
-        ValueAnimator moveTL = ValueAnimator.ofInt(-(fabWidth/2)-MARGIN_BW_SQUARES, 0);
-        moveTL.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                xTransTL = yTransTL = (int)animation.getAnimatedValue();
-                invalidate();
-            }
-        });
+    /**
+     * @return
+     */
+    public int getRenderMode() {
+        return renderMode;
+    }
 
-        ValueAnimator moveTR = ValueAnimator.ofInt(-(fabWidth/2)-MARGIN_BW_SQUARES, 0);
-        moveTR.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                yTransTR = (int)animation.getAnimatedValue();
-                invalidate();
-            }
-        });
+    /**
+     * @param renderMode {@link #RENDER_MODE_SOFTWARE}, {@link #RENDER_MODE_HARDWARE} OR
+     *                   {@link #RENDER_MODE_LAYERS}, where the squares, the plus icon and the
+     *                   menu icons are child views that animate by their scale, translation,
+     *                   rotation and alpha only, without being drawn again every frame.
+     *                   Default mode will be {@link #RENDER_MODE_SOFTWARE}
+     */
+    public void setRenderMode(int renderMode) {
+        if(this.renderMode == renderMode) return;
+        this.renderMode = renderMode;
+        // The square matrices are not kept up to date in the layers render mode
+        onPropertyChanged(CHANGE_RENDER_MODE | CHANGE_GEOMETRY);
+    }
 
-        ValueAnimator moveBL = ValueAnimator.ofInt(-(fabWidth/2)-MARGIN_BW_SQUARES, 0);
-        moveBL.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                xTransBL = (int)animation.getAnimatedValue();
-                invalidate();
-            }
-        });
+    /**
+     * @return true when the menu is open or opening
+     */
+    public boolean isOpened() {
+        return isOpened;
+    }
 
-        scaleFAB.reverse();
-        rotatePlus.reverse();
-        alphaIcon.reverse();
+    /**
+     * Opens or closes the menu from code. A running animation is reversed from where it is.
+     *
+     * @param open    true to open the menu, false to close it
+     * @param animate false to jump straight to the end state without any animation
+     */
+    public void setOpened(boolean open, boolean animate) {
+        boolean changed = open != isOpened;
+        // Already there and at rest, nothing to build, animate or count
+        if(!changed && (menuAnimator == null || menuAnimator.isSettled())) return;
+        isOpened = open;
+        if(changed && open && group != null) group.onMenuOpening(this);
+        if(animate) {
+            if(open) startMenuAnimation();
+            else resetMenuAnimation();
+        }
+        else if(open || menuAnimator != null) {
+            ensureOpenResources();
+            showSquareShadows = open;
+            float end = open ? 1f : 0f;
+            menuAnimator.jumpTo(end, end, open);
+            invalidateMenu();
+        }
+        if(changed && onMenuItemClickListener != null) {
+            if(open) onMenuItemClickListener.onMenuOpen();
+            else onMenuItemClickListener.onMenuClose();
+        }
+    }
 
-        fabsAnimSet.addListener(new AnimatorListenerAdapter() {
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                // Setup Background and Foreground Shadow
-                paintFabBG = paintFabBGWidShadow;
-                paintFAB.setShadowLayer(0,0,0,Color.TRANSPARENT);
-            }
-        });
-        fabsAnimSet.playTogether(moveTL, moveTR, moveBL);
-        fabsAnimSet.setDuration(ANIM_SPEED);
-        fabsAnimSet.start();
+    /**
+     * Takes effect from the next open or close.
+     *
+     * @param duration     ms the squares take to open or close, default is 200
+     * @param iconDuration ms the icons take to fade in, default is 1000
+     */
+    public void setAnimationDuration(long duration, long iconDuration) {
+        this.animDuration = duration;
+        this.iconFadeDuration = iconDuration;
     }
 
     /**
-     * @return
+     * @param interpolator one of the INTERPOLATOR_ constants, default is
+     *                     {@link #INTERPOLATOR_ACCELERATE_DECELERATE}
      */
-    public String getMenuOpenDirection() {
-        return menuOpenDirection;
+    public void setAnimationInterpolator(int interpolator) {
+        if(interpolator < 0 || interpolator >= INTERPOLATORS.length) interpolator = DEFAULT_INTERPOLATOR;
+        this.interpolator = interpolator;
+        if(menuAnimator != null) menuAnimator.setInterpolator(INTERPOLATORS[interpolator]);
     }
 
     /**
-     * @param menuOpenDirection  "top_left" OR "top_right",  Default direction will be "top_left"
+     * With a spring the squares follow spring physics instead of the duration and the
+     * interpolator, and keep their speed when the menu is reversed mid-flight.
+     * Takes effect from the next open or close.
+     *
+     * @param enabled      default is false
+     * @param stiffness    higher is faster, default is 500
+     * @param dampingRatio 1 for no bounce, lower values bounce, default is 0.7
      */
-    public void setMenuOpenDirection(String menuOpenDirection) {
-        this.menuOpenDirection = menuOpenDirection;
+    public void setSpringAnimation(boolean enabled, float stiffness, float dampingRatio) {
+        this.springAnimation = enabled;
+        this.springStiffness = stiffness;
+        this.springDampingRatio = dampingRatio;
     }
 
     /**
-     * @return
+     * The menu opens and closes the same way and calls the listener the same way in every
+     * policy, only the motion differs.
+     *
+     * @param motionPolicy {@link #MOTION_FULL} animates everything, {@link #MOTION_REDUCED}
+     *                     jumps the squares and quickly crossfades the icons, {@link #MOTION_NONE}
+     *                     jumps straight to the end state, and {@link #MOTION_SYSTEM} picks
+     *                     none when animations are off in the system settings, reduced in
+     *                     battery saver and full otherwise, scaled by the animator duration
+     *                     scale (read from API 17, taken as 1 below). Default is {@link #MOTION_FULL}
      */
-    public int getFABColor() {
-        return fabColor;
+    public void setMotionPolicy(int motionPolicy) {
+        this.motionPolicy = motionPolicy;
+    }
+
+    public int getMotionPolicy() {
+        return motionPolicy;
     }
 
     /**
-     * @param color
+     * @param delay ms a closed menu keeps its animator, icons and square shadows before
+     *              releasing them, 0 releases them as soon as it closes. Default is -1,
+     *              never release them
      */
-    public void setFABColor(int color) {
-        this.fabColor = color;
-        invalidate();
-        requestLayout();
+    public void setIdleReleaseDelay(long delay) {
+        this.idleReleaseDelay = delay;
+        removeCallbacks(releaseOpenResources);
+        if(delay >= 0 && !isOpened) postDelayed(releaseOpenResources, delay);
     }
 
     /**
@@ -658,6 +1187,96 @@ public class SquareMenu extends View {
      * @param onMenuClickListener The callback that will run
      */
     public void setOnMenuClickListener(OnMenuClickListener onMenuClickListener) {
-        this.onMenuClickListener = onMenuClickListener;
+        setOnMenuItemClickListener(onMenuClickListener != null ?
+                new OnMenuClickListenerAdapter(onMenuClickListener) : null);
+    }
+
+    /**
+     * Register callbacks to be invoked when this Menu or one of its items is clicked.
+     *
+     * @param onMenuItemClickListener The callback that will run
+     */
+    public void setOnMenuItemClickListener(OnMenuItemClickListener onMenuItemClickListener) {
+        this.onMenuItemClickListener = onMenuItemClickListener;
+    }
+
+    /**
+     * @param deferClickDispatch true to deliver item clicks after the next frame is drawn,
+     *                           so slow click handlers do not hold up the close animation.
+     *                           Default is false
+     */
+    public void setDeferClickDispatch(boolean deferClickDispatch) {
+        this.deferClickDispatch = deferClickDispatch;
+        if(!deferClickDispatch) flushPendingClick();
+    }
+
+    /**
+     * @return the group this menu belongs to, null when none
+     */
+    public SquareMenuGroup getGroup() {
+        return group;
+    }
+
+    void setGroup(SquareMenuGroup group) {
+        this.group = group;
+        if(menuAnimator != null) menuAnimator.setGroup(group);
+    }
+
+    /**
+     * @param enabled true to record frame timing of this menu, see {@link #getMetrics()}.
+     *                Default is false, and then nothing is timed
+     */
+    public void setMetricsEnabled(boolean enabled) {
+        if(!enabled) {
+            metrics = null;
+            return;
+        }
+        if(metrics != null) return;
+        metrics = new SquareMenuMetrics();
+        updateFrameRate();
+    }
+
+    /**
+     * @return frame timing recorded so far, null unless {@link #setMetricsEnabled(boolean)} is on
+     */
+    public SquareMenuMetrics getMetrics() {
+        return metrics;
+    }
+
+    static class SavedState extends BaseSavedState {
+
+        boolean opened;
+        float progress, iconProgress;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        private SavedState(Parcel in) {
+            super(in);
+            opened = in.readInt() != 0;
+            progress = in.readFloat();
+            iconProgress = in.readFloat();
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeInt(opened ? 1 : 0);
+            out.writeFloat(progress);
+            out.writeFloat(iconProgress);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
     }
-}
\ No newline at end of file
+}
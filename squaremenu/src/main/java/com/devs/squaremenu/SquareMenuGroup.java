@@ -0,0 +1,117 @@
+package com.devs.squaremenu;
+
+import java.util.ArrayList;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Coordinates the SquareMenus of one screen. Every member animates from one shared frame
+ * callback, so however many menus move at once they all update in the same pass of each
+ * display frame and their redraws land in a single traversal. With single open, opening
+ * a member closes the others. Use from the UI thread only, and remove menus that leave
+ * the screen for good.
+ */
+public class SquareMenuGroup {
+
+    private final ArrayList<SquareMenu> menus = new ArrayList<SquareMenu>();
+    private boolean singleOpen = false;
+
+    // Drivers of the members that are animating, all fed by the shared driver
+    private final ArrayList<MemberDriver> active = new ArrayList<MemberDriver>();
+    private final ArrayList<MemberDriver> frameDrivers = new ArrayList<MemberDriver>();
+    private final FrameDriver sharedDriver = FrameDriver.create(new FrameDriver.Callback() {
+        @Override
+        public void onFrame(long frameTimeNanos) {
+            dispatchFrame(frameTimeNanos);
+        }
+    });
+
+    /**
+     * @param menu joins this group, leaving the group it was in
+     */
+    public void add(SquareMenu menu) {
+        if(menus.contains(menu)) return;
+        SquareMenuGroup previous = menu.getGroup();
+        if(previous != null) previous.remove(menu);
+        menus.add(menu);
+        menu.setGroup(this);
+    }
+
+    public void remove(SquareMenu menu) {
+        if(!menus.remove(menu)) return;
+        menu.setGroup(null);
+    }
+
+    /**
+     * @param singleOpen true to close the other members when one opens. Default is false
+     */
+    public void setSingleOpen(boolean singleOpen) {
+        this.singleOpen = singleOpen;
+    }
+
+    public boolean isSingleOpen() {
+        return singleOpen;
+    }
+
+    /**
+     * Closes every member, animated.
+     */
+    public void closeAll() {
+        for (int i = 0; i < menus.size(); i++) {
+            SquareMenu menu = menus.get(i);
+            if(menu.isOpened()) menu.setOpened(false, true);
+        }
+    }
+
+    void onMenuOpening(SquareMenu opening) {
+        if(!singleOpen) return;
+        for (int i = 0; i < menus.size(); i++) {
+            SquareMenu menu = menus.get(i);
+            if(menu != opening && menu.isOpened()) menu.setOpened(false, true);
+        }
+    }
+
+    /**
+     * @return a driver for one member, calling back from the shared frame callback
+     */
+    FrameDriver newFrameDriver(FrameDriver.Callback callback) {
+        return new MemberDriver(callback);
+    }
+
+    private void dispatchFrame(long frameTimeNanos) {
+        // Members may stop or start animating from their callback
+        frameDrivers.clear();
+        for (int i = 0; i < active.size(); i++) frameDrivers.add(active.get(i));
+        for (int i = 0; i < frameDrivers.size(); i++) {
+            MemberDriver driver = frameDrivers.get(i);
+            if(driver.running) driver.callback.onFrame(frameTimeNanos);
+        }
+        frameDrivers.clear();
+        if(active.isEmpty()) sharedDriver.stop();
+    }
+
+    private final class MemberDriver extends FrameDriver {
+
+        MemberDriver(Callback callback) {
+            super(callback);
+        }
+
+        @Override
+        void start() {
+            if(running) return;
+            running = true;
+            active.add(this);
+            sharedDriver.start();
+        }
+
+        @Override
+        void stop() {
+            if(!running) return;
+            running = false;
+            active.remove(this);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.devs.squaremenu;
+
+import android.graphics.drawable.Drawable;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * One action of a {@link SquareMenu}, shown as a square with an icon once the menu opens.
+ */
+public class SquareMenuItem {
+
+    private final long id;
+    private final int iconResId;
+    private final Drawable icon;
+
+    /**
+     * @param id        stable id of the item, handed back on click
+     * @param iconResId drawable resource of the icon, 0 for none
+     */
+    public SquareMenuItem(long id, int iconResId) {
+        this.id = id;
+        this.iconResId = iconResId;
+        this.icon = null;
+    }
+
+    /**
+     * @param id   stable id of the item, handed back on click
+     * @param icon any drawable, rasterized once at the size of a menu square. null for none
+     */
+    public SquareMenuItem(long id, Drawable icon) {
+        this.id = id;
+        this.iconResId = 0;
+        this.icon = icon;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public int getIconResId() {
+        return iconResId;
+    }
+
+    public Drawable getIcon() {
+        return icon;
+    }
+}
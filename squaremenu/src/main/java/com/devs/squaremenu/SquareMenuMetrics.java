@@ -0,0 +1,198 @@
+package com.devs.squaremenu;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Frame timing of a SquareMenu: onDraw duration (setting the view properties in the layers
+ * render mode), frames rendered and dropped per open or close animation, and the latency
+ * from the touch to the first frame drawn. Durations go into power of two histograms held
+ * in atomic counters, so recording never locks and a {@link Snapshot} can be taken from
+ * any thread.
+ */
+public class SquareMenuMetrics {
+
+    public interface Listener {
+        /**
+         * Called on the UI thread when an open or close animation comes to rest.
+         *
+         * @param framesRendered         frames drawn during the animation, icon fade included
+         * @param framesDropped          frames missing while the squares moved, compared to
+         *                               the frames their move duration holds
+         * @param touchToFirstFrameNanos from the touch to the end of the first frame drawn,
+         *                               -1 when the animation was not started by a touch
+         */
+        void onAnimationMetrics(int framesRendered, int framesDropped, long touchToFirstFrameNanos);
+    }
+
+    // Bucket i counts durations in [2^i, 2^(i+1)) microseconds, the first one also below 1us
+    static final int BUCKET_COUNT = 24;
+    private static final long DEFAULT_FRAME_INTERVAL_NANOS = 1000000000L / 60;
+
+    private final AtomicLongArray drawTimes = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLongArray touchLatencies = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong animations = new AtomicLong();
+    private final AtomicLong framesRendered = new AtomicLong();
+    private final AtomicLong framesDropped = new AtomicLong();
+
+    private Listener listener = null;
+    private long frameIntervalNanos = DEFAULT_FRAME_INTERVAL_NANOS;
+
+    // Animation being recorded, only touched on the UI thread
+    private boolean animating = false;
+    private long touchTimeNanos = -1;
+    private long firstFrameLatency = -1;
+    private int animationFrames = 0;
+    // Frames drawn within the move duration from the first frame
+    private int moveFrames = 0;
+    private long moveDurationNanos = 0;
+    private long firstFrameNanos = 0;
+
+    SquareMenuMetrics() {
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    void setFrameIntervalNanos(long frameIntervalNanos) {
+        if(frameIntervalNanos > 0) this.frameIntervalNanos = frameIntervalNanos;
+    }
+
+    void onTouch(long timeNanos) {
+        touchTimeNanos = timeNanos;
+    }
+
+    /**
+     * Starts recording an animation, a reversal mid-flight starts over.
+     *
+     * @param moveDurationMs how long the squares are meant to move, the budget dropped
+     *                       frames are counted against
+     */
+    void onAnimationStart(long moveDurationMs) {
+        animating = true;
+        animationFrames = 0;
+        moveFrames = 0;
+        moveDurationNanos = moveDurationMs * 1000000L;
+        firstFrameLatency = -1;
+    }
+
+    void onFrameDrawn(long startNanos, long endNanos) {
+        record(drawTimes, endNanos - startNanos);
+        if(animating) {
+            if(animationFrames == 0) firstFrameNanos = startNanos;
+            if(startNanos - firstFrameNanos < moveDurationNanos) moveFrames++;
+            if(animationFrames++ == 0 && touchTimeNanos >= 0) {
+                firstFrameLatency = endNanos - touchTimeNanos;
+                record(touchLatencies, firstFrameLatency);
+            }
+        }
+        // A touch that started no animation has no first frame
+        touchTimeNanos = -1;
+    }
+
+    void onAnimationEnd() {
+        if(!animating) return;
+        animating = false;
+        int expected = (int) (moveDurationNanos / frameIntervalNanos);
+        int dropped = Math.max(0, expected - moveFrames);
+        animations.incrementAndGet();
+        framesRendered.addAndGet(animationFrames);
+        framesDropped.addAndGet(dropped);
+        if(listener != null) listener.onAnimationMetrics(animationFrames, dropped, firstFrameLatency);
+    }
+
+    /**
+     * @return a copy of everything recorded so far
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(copy(drawTimes), copy(touchLatencies), animations.get(),
+                framesRendered.get(), framesDropped.get());
+    }
+
+    /**
+     * Clears everything recorded so far.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            drawTimes.set(i, 0);
+            touchLatencies.set(i, 0);
+        }
+        animations.set(0);
+        framesRendered.set(0);
+        framesDropped.set(0);
+    }
+
+    private static void record(AtomicLongArray histogram, long nanos) {
+        long micros = Math.max(1, nanos / 1000);
+        int bucket = Math.min(BUCKET_COUNT - 1, 63 - Long.numberOfLeadingZeros(micros));
+        histogram.incrementAndGet(bucket);
+    }
+
+    private static long[] copy(AtomicLongArray histogram) {
+        long[] counts = new long[histogram.length()];
+        for (int i = 0; i < counts.length; i++) counts[i] = histogram.get(i);
+        return counts;
+    }
+
+    public static final class Snapshot {
+
+        private final long[] drawTimes, touchLatencies;
+        private final long animations, framesRendered, framesDropped;
+
+        private Snapshot(long[] drawTimes, long[] touchLatencies, long animations,
+                         long framesRendered, long framesDropped) {
+            this.drawTimes = drawTimes;
+            this.touchLatencies = touchLatencies;
+            this.animations = animations;
+            this.framesRendered = framesRendered;
+            this.framesDropped = framesDropped;
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         * @return upper bound in nanoseconds of the onDraw duration at that percentile
+         */
+        public long getDrawTimeNanos(double percentile) {
+            return percentile(drawTimes, percentile);
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         * @return upper bound in nanoseconds of the touch to first frame latency at that percentile
+         */
+        public long getTouchToFirstFrameNanos(double percentile) {
+            return percentile(touchLatencies, percentile);
+        }
+
+        public long getAnimationCount() {
+            return animations;
+        }
+
+        public long getFramesRendered() {
+            return framesRendered;
+        }
+
+        public long getFramesDropped() {
+            return framesDropped;
+        }
+
+        private static long percentile(long[] histogram, double percentile) {
+            long total = 0;
+            for (long count : histogram) total += count;
+            if(total == 0) return 0;
+            long rank = (long) Math.ceil(total * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                seen += histogram[i];
+                if(seen >= rank) return (2L << i) * 1000;
+            }
+            return (2L << (histogram.length - 1)) * 1000;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.devs.squaremenu;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Bytes allocated by the current thread, from the HotSpot thread bean. Tests and
+ * benchmarks that count allocations skip them on a JVM without it.
+ */
+final class Allocations {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private Allocations() {
+    }
+
+    static boolean isSupported() {
+        return THREADS instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemorySupported()
+                && ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemoryEnabled();
+    }
+
+    /**
+     * @return bytes allocated by the current thread so far, -1 when not supported
+     */
+    static long allocatedBytes() {
+        if(!isSupported()) return -1;
+        return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * @return bytes the measurement itself allocates, to subtract from a measured span
+     */
+    static long overhead() {
+        long start = allocatedBytes();
+        return allocatedBytes() - start;
+    }
+}
@@ -0,0 +1,110 @@
+package com.devs.squaremenu;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Minimal micro-benchmark runner for plain JVM tests. An op is warmed up, then timed
+ * over a few batches long enough for the clock; each result is one JSON object per
+ * line, printed and appended to the file named by the squaremenu.benchmark.output
+ * system property, with the median ns/op and the bytes allocated per op.
+ */
+final class Benchmark {
+
+    abstract static class Op {
+        abstract void run();
+    }
+
+    private static final String OUTPUT = System.getProperty("squaremenu.benchmark.output",
+            "build/benchmarks/squaremenu-jvm.json");
+    private static final long WARMUP_NANOS = 50000000L;
+    private static final long BATCH_NANOS = 10000000L;
+    private static final int BATCHES = 5;
+
+    private static PrintWriter output = null;
+
+    private Benchmark() {
+    }
+
+    /**
+     * Times the op and records it with the given name and key, value parameters.
+     */
+    static void measure(String name, Op op, Object... params) {
+        // Warm up, doubling the batch until one batch is long enough to time
+        int ops = 1;
+        long warmupEnd = System.nanoTime() + WARMUP_NANOS;
+        while (true) {
+            long start = System.nanoTime();
+            runBatch(op, ops);
+            long elapsed = System.nanoTime() - start;
+            if(elapsed >= BATCH_NANOS && System.nanoTime() >= warmupEnd) break;
+            if(elapsed < BATCH_NANOS) ops *= 2;
+        }
+
+        long[] times = new long[BATCHES];
+        long overhead = Allocations.overhead();
+        long bytes = 0;
+        for (int b = 0; b < BATCHES; b++) {
+            long allocated = Allocations.allocatedBytes();
+            long start = System.nanoTime();
+            runBatch(op, ops);
+            times[b] = System.nanoTime() - start;
+            bytes += Allocations.allocatedBytes() - allocated - overhead;
+        }
+        Arrays.sort(times);
+        double nsPerOp = (double) times[BATCHES / 2] / ops;
+        double bytesPerOp = Allocations.isSupported() ? Math.max(0, bytes) / ((double) ops * BATCHES) : -1;
+
+        Object[] fields = Arrays.copyOf(params, params.length + 6);
+        fields[params.length] = "ops";
+        fields[params.length + 1] = (long) ops * BATCHES;
+        fields[params.length + 2] = "nsPerOp";
+        fields[params.length + 3] = nsPerOp;
+        fields[params.length + 4] = "allocatedBytesPerOp";
+        fields[params.length + 5] = bytesPerOp;
+        record(name, fields);
+    }
+
+    private static void runBatch(Op op, int ops) {
+        for (int i = 0; i < ops; i++) op.run();
+    }
+
+    /**
+     * Records a result that is not timed by {@link #measure}, such as a count or an area.
+     */
+    static synchronized void record(String name, Object... fields) {
+        StringBuilder line = new StringBuilder("{\"benchmark\":\"").append(name).append('"');
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            line.append(",\"").append(fields[i]).append("\":");
+            Object value = fields[i + 1];
+            if(value instanceof Float || value instanceof Double)
+                line.append(String.format(Locale.US, "%.3f", ((Number) value).doubleValue()));
+            else if(value instanceof Number || value instanceof Boolean)
+                line.append(value);
+            else
+                line.append('"').append(value).append('"');
+        }
+        line.append('}');
+        System.out.println(line);
+        try {
+            if(output == null) {
+                // Every run starts a new file
+                File file = new File(OUTPUT);
+                if(file.getParentFile() != null) file.getParentFile().mkdirs();
+                output = new PrintWriter(new FileWriter(file, false), true);
+            }
+            output.println(line);
+        } catch (IOException e) {
+            System.err.println("Cannot write benchmark results to " + OUTPUT + ": " + e);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.devs.squaremenu;
+
+import android.view.animation.Interpolator;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * {@link MenuAnimator} driven by a stub {@link FrameDriver}, with the frames delivered
+ * by the test: when frames are asked for, and what a frame allocates.
+ */
+public class MenuAnimatorTest {
+
+    private static final long FRAME_NANOS = 16666667L;
+    private static final int MAX_FRAMES = 1000;
+
+    private static final Interpolator LINEAR = new Interpolator() {
+        @Override
+        public float getInterpolation(float input) {
+            return input;
+        }
+    };
+
+    /**
+     * Counts start requests and only delivers the frames the test plays.
+     */
+    static final class StubDriver extends FrameDriver {
+
+        int starts = 0;
+
+        StubDriver(Callback callback) {
+            super(callback);
+        }
+
+        @Override
+        void start() {
+            if(running) return;
+            running = true;
+            starts++;
+        }
+
+        @Override
+        void stop() {
+            running = false;
+        }
+    }
+
+    /**
+     * Applies every update to a geometry, like SquareMenu does each frame.
+     */
+    static final class FrameSink implements MenuAnimator.Callback {
+
+        final MenuGeometry geometry = new MenuGeometry(8, 3, 20);
+        final float[] bounds = new float[4];
+        float progress = 0f, iconProgress = 0f;
+        int updates = 0, settles = 0;
+        boolean settledOpen = false;
+
+        FrameSink() {
+            geometry.layout(3 * 56 + 8, 3 * 56 + 8, 56, 56, -1, -1, 8);
+        }
+
+        @Override
+        public void onMenuAnimationUpdate(float progress, float iconProgress) {
+            this.progress = progress;
+            this.iconProgress = iconProgress;
+            updates++;
+            for (int i = 0; i < geometry.squareCount; i++) geometry.mapSquare(i, progress, 4f, bounds);
+        }
+
+        @Override
+        public void onMenuAnimationSettled(boolean opened) {
+            settles++;
+            settledOpen = opened;
+        }
+    }
+
+    private FrameSink sink;
+    private MenuAnimator animator;
+    private StubDriver driver;
+    private long frameTime;
+
+    @Before
+    public void setUp() throws Exception {
+        sink = new FrameSink();
+        animator = new MenuAnimator(sink, 200, 1000, LINEAR, 500f, 0.7f);
+        driver = new StubDriver(animator);
+        animator.setFrameDriver(driver);
+        frameTime = 0;
+    }
+
+    private void playFrames(int count) {
+        for (int i = 0; i < count && driver.isRunning(); i++) {
+            animator.onFrame(frameTime);
+            frameTime += FRAME_NANOS;
+        }
+    }
+
+    private void playToEnd() {
+        playFrames(MAX_FRAMES);
+        assertFalse("settles within " + MAX_FRAMES + " frames", driver.isRunning());
+    }
+
+    @Test
+    public void open_runsUntilSettledAndStopsAskingForFrames() throws Exception {
+        animator.animateTo(true);
+        assertTrue(driver.isRunning());
+        playToEnd();
+        assertEquals(1f, sink.progress, 0f);
+        assertEquals(1f, sink.iconProgress, 0f);
+        assertEquals(1, sink.settles);
+        assertTrue(sink.settledOpen);
+        assertTrue(animator.isSettled());
+        assertEquals(1, driver.starts);
+    }
+
+    @Test
+    public void durationsTo_coverWhatIsLeftOfTheRun() throws Exception {
+        assertEquals(200, animator.getMoveDurationTo(true));
+        assertEquals(1000, animator.getIconDurationTo(true));
+        animator.animateTo(true);
+        // 100ms in: half the move and a tenth of the icon fade are played
+        animator.onFrame(0);
+        animator.onFrame(100000000L);
+        assertEquals(100, animator.getMoveDurationTo(true));
+        assertEquals(100, animator.getMoveDurationTo(false));
+        assertEquals(900, animator.getIconDurationTo(true));
+        // Closing hides the icons at once
+        assertEquals(0, animator.getIconDurationTo(false));
+        assertFalse(animator.isSpringRun());
+    }
+
+    @Test
+    public void finish_jumpsToTheEndAndStopsTheDriver() throws Exception {
+        animator.animateTo(true);
+        playFrames(3);
+        animator.finish();
+        assertFalse(driver.isRunning());
+        assertEquals(1f, sink.progress, 0f);
+        assertEquals(1, sink.settles);
+
+        // Nothing more is asked for once finished
+        animator.finish();
+        assertEquals(1, driver.starts);
+        assertEquals(1, sink.settles);
+    }
+
+    @Test
+    public void hiding_finishesTheRunInFlight() throws Exception {
+        animator.animateTo(true);
+        playFrames(3);
+        animator.setVisible(false);
+        assertFalse(driver.isRunning());
+        assertEquals(1f, sink.progress, 0f);
+        assertTrue(sink.settledOpen);
+    }
+
+    @Test
+    public void whileHidden_runsJumpWithoutAskingForFrames() throws Exception {
+        animator.setVisible(false);
+        animator.animateTo(true);
+        assertFalse(driver.isRunning());
+        assertEquals(1f, sink.progress, 0f);
+        animator.animateTo(false);
+        assertFalse(driver.isRunning());
+        assertEquals(0f, sink.progress, 0f);
+        assertEquals(0, driver.starts);
+        assertEquals(2, sink.settles);
+
+        animator.setVisible(true);
+        animator.animateTo(true);
+        assertTrue(driver.isRunning());
+        assertEquals(1, driver.starts);
+    }
+
+    @Test
+    public void zeroDuration_settlesWithoutAskingForFrames() throws Exception {
+        animator.setDurations(0, 0);
+        animator.animateTo(true);
+        assertFalse(driver.isRunning());
+        assertEquals(0, driver.starts);
+        assertEquals(1f, sink.progress, 0f);
+        assertTrue(sink.settledOpen);
+    }
+
+    @Test
+    public void reversal_carriesOnFromTheCurrentProgress() throws Exception {
+        animator.animateTo(true);
+        // The first frame only sets the start time, 100ms later the squares are half way
+        playFrames(7);
+        float atReversal = animator.getProgress();
+        assertTrue(atReversal > 0.4f && atReversal < 0.6f);
+
+        animator.animateTo(false);
+        playFrames(2);
+        assertTrue(animator.getProgress() < atReversal);
+        assertTrue(animator.getProgress() > 0f);
+        playToEnd();
+        assertEquals(0f, sink.progress, 0f);
+        assertFalse(sink.settledOpen);
+    }
+
+    @Test
+    public void spring_reversalStaysContinuous() throws Exception {
+        animator.setSpringEnabled(true);
+        animator.animateTo(true);
+        playFrames(4);
+        float atReversal = sink.progress;
+        animator.animateTo(false);
+        playFrames(2);
+        assertEquals(atReversal, sink.progress, 0.1f);
+        playToEnd();
+        assertEquals(0f, sink.progress, 0f);
+        assertTrue(animator.isSettled());
+    }
+
+    @Test
+    public void frames_allocateNothingOverAFullCycle() throws Exception {
+        Assume.assumeTrue("needs HotSpot thread allocation counters", Allocations.isSupported());
+        // Warm up, the easing table is baked on the first frame
+        animator.animateTo(true);
+        playToEnd();
+        animator.animateTo(false);
+        playToEnd();
+
+        long overhead = Allocations.overhead();
+        long start = Allocations.allocatedBytes();
+        animator.animateTo(true);
+        playToEnd();
+        animator.animateTo(false);
+        playToEnd();
+        long allocated = Allocations.allocatedBytes() - start - overhead;
+
+        assertTrue(sink.updates > 20);
+        assertEquals("bytes allocated by a full open and close", 0, allocated);
+    }
+
+    @Test
+    public void spring_framesAllocateNothing() throws Exception {
+        Assume.assumeTrue("needs HotSpot thread allocation counters", Allocations.isSupported());
+        animator.setSpringEnabled(true);
+        animator.animateTo(true);
+        playToEnd();
+
+        long overhead = Allocations.overhead();
+        long start = Allocations.allocatedBytes();
+        animator.animateTo(false);
+        playToEnd();
+        animator.animateTo(true);
+        playToEnd();
+        long allocated = Allocations.allocatedBytes() - start - overhead;
+
+        assertEquals("bytes allocated by a full spring close and open", 0, allocated);
+    }
+}
@@ -0,0 +1,192 @@
+package com.devs.squaremenu;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Grid layout and touch tables of {@link MenuGeometry}, for every direction.
+ */
+public class MenuGeometryTest {
+
+    private static final int CELL = 56;
+    private static final int OUTER_MARGIN = 8;
+    private static final int SQUARE_MARGIN = 3;
+    private static final float EPSILON = 0.01f;
+
+    // Same order as SquareMenu: top left, top right, bottom left, bottom right
+    private static final int[] DIRECTION_X = {-1, 1, -1, 1};
+    private static final int[] DIRECTION_Y = {-1, -1, 1, 1};
+
+    private static final int F = MenuGeometry.CELL_FAB;
+    private static final int E = MenuGeometry.CELL_EMPTY;
+
+    private static MenuGeometry layout(int direction, int itemCount, int cellWidth, int cellHeight) {
+        MenuGeometry geometry = new MenuGeometry(OUTER_MARGIN, SQUARE_MARGIN, 20);
+        int k = MenuGeometry.gridSizeFor(itemCount);
+        geometry.layout(k * cellWidth + OUTER_MARGIN, k * cellHeight + OUTER_MARGIN, cellWidth, cellHeight,
+                DIRECTION_X[direction], DIRECTION_Y[direction], itemCount);
+        return geometry;
+    }
+
+    /**
+     * @return the item of every cell, row by row, as resolved by a touch at its center
+     */
+    private static int[] cellTable(MenuGeometry geometry) {
+        int k = geometry.gridSize;
+        int[] table = new int[k * k];
+        for (int row = 0; row < k; row++) {
+            for (int col = 0; col < k; col++) table[row * k + col] = geometry.itemAt(col * CELL + CELL / 2, row * CELL + CELL / 2);
+        }
+        return table;
+    }
+
+    @Test
+    public void gridSize_fitsFabAndItems() throws Exception {
+        assertEquals(2, MenuGeometry.gridSizeFor(0));
+        assertEquals(2, MenuGeometry.gridSizeFor(3));
+        assertEquals(3, MenuGeometry.gridSizeFor(4));
+        assertEquals(3, MenuGeometry.gridSizeFor(8));
+        assertEquals(4, MenuGeometry.gridSizeFor(9));
+    }
+
+    @Test
+    public void legacyLayout_keepsTheThreeMenuPositions() throws Exception {
+        // Menu 1 beside the FAB, menu 2 on the diagonal and menu 3 above or below it
+        assertArrayEquals("top left", new int[]{
+                1, 2,
+                0, F}, cellTable(layout(0, 3, CELL, CELL)));
+        assertArrayEquals("top right", new int[]{
+                2, 1,
+                F, 0}, cellTable(layout(1, 3, CELL, CELL)));
+        assertArrayEquals("bottom left", new int[]{
+                0, F,
+                1, 2}, cellTable(layout(2, 3, CELL, CELL)));
+        assertArrayEquals("bottom right", new int[]{
+                F, 0,
+                2, 1}, cellTable(layout(3, 3, CELL, CELL)));
+    }
+
+    @Test
+    public void grid3_snakesAwayFromTheFab() throws Exception {
+        assertArrayEquals("top left", new int[]{
+                7, 6, 5,
+                2, 3, 4,
+                1, 0, F}, cellTable(layout(0, 8, CELL, CELL)));
+        assertArrayEquals("top right", new int[]{
+                5, 6, 7,
+                4, 3, 2,
+                F, 0, 1}, cellTable(layout(1, 8, CELL, CELL)));
+        assertArrayEquals("bottom left", new int[]{
+                1, 0, F,
+                2, 3, 4,
+                7, 6, 5}, cellTable(layout(2, 8, CELL, CELL)));
+        assertArrayEquals("bottom right", new int[]{
+                F, 0, 1,
+                4, 3, 2,
+                5, 6, 7}, cellTable(layout(3, 8, CELL, CELL)));
+    }
+
+    @Test
+    public void grid3_leavesCellsWithoutItemsEmpty() throws Exception {
+        assertArrayEquals(new int[]{
+                E, E, E,
+                2, 3, 4,
+                1, 0, F}, cellTable(layout(0, 5, CELL, CELL)));
+    }
+
+    @Test
+    public void itemAt_clampsOutsideTheGrid() throws Exception {
+        MenuGeometry geometry = layout(0, 3, CELL, CELL);
+        assertEquals(F, geometry.itemAt(10000, 10000));
+        assertEquals(1, geometry.itemAt(-5, -5));
+    }
+
+    @Test
+    public void closedSquares_tileTheFab() throws Exception {
+        float[] bounds = new float[4];
+        for (int direction = 0; direction < 4; direction++) {
+            for (int itemCount : new int[]{3, 8}) {
+                MenuGeometry geometry = layout(direction, itemCount, CELL, CELL);
+                float area = 0;
+                for (int i = 0; i < geometry.squareCount; i++) {
+                    geometry.mapSquare(i, 0f, 0f, bounds);
+                    area += (bounds[2] - bounds[0]) * (bounds[3] - bounds[1]);
+                    float[] bg = geometry.background;
+                    assertTrue(bounds[0] >= bg[0] - EPSILON && bounds[2] <= bg[2] + EPSILON);
+                    assertTrue(bounds[1] >= bg[1] - EPSILON && bounds[3] <= bg[3] + EPSILON);
+                }
+                assertEquals(CELL * CELL, area, 1f);
+            }
+        }
+    }
+
+    @Test
+    public void openSquares_sitInsideTheirCellsWithEvenGaps() throws Exception {
+        for (int direction = 0; direction < 4; direction++) {
+            for (int itemCount : new int[]{3, 8, 15}) {
+                assertOpenLayout(layout(direction, itemCount, CELL, CELL), direction, CELL, CELL);
+                assertOpenLayout(layout(direction, itemCount, CELL, 48), direction, CELL, 48);
+            }
+        }
+    }
+
+    private static void assertOpenLayout(MenuGeometry geometry, int direction, int cellWidth, int cellHeight) {
+        int k = geometry.gridSize;
+        String name = "direction " + direction + ", k " + k;
+        float[][] cells = new float[k * k][];
+        float[] bounds = new float[4];
+        for (int i = 0; i < geometry.squareCount; i++) {
+            geometry.mapSquare(i, 1f, 0f, bounds);
+            int col = (int) ((bounds[0] + bounds[2]) / 2 / cellWidth);
+            int row = (int) ((bounds[1] + bounds[3]) / 2 / cellHeight);
+            assertNull(name + ": one square per cell", cells[row * k + col]);
+            cells[row * k + col] = bounds.clone();
+
+            // Inside its cell, one margin smaller, flush with the FAB side
+            assertTrue(name, bounds[0] >= col * cellWidth - EPSILON);
+            assertTrue(name, bounds[2] <= (col + 1) * cellWidth + EPSILON);
+            assertTrue(name, bounds[1] >= row * cellHeight - EPSILON);
+            assertTrue(name, bounds[3] <= (row + 1) * cellHeight + EPSILON);
+            assertEquals(name, cellWidth - SQUARE_MARGIN, bounds[2] - bounds[0], EPSILON);
+            assertEquals(name, cellHeight - SQUARE_MARGIN, bounds[3] - bounds[1], EPSILON);
+            float fabSideX = DIRECTION_X[direction] < 0 ? bounds[2] - (col + 1) * cellWidth : bounds[0] - col * cellWidth;
+            float fabSideY = DIRECTION_Y[direction] < 0 ? bounds[3] - (row + 1) * cellHeight : bounds[1] - row * cellHeight;
+            assertEquals(name, 0f, fabSideX, EPSILON);
+            assertEquals(name, 0f, fabSideY, EPSILON);
+        }
+
+        for (int row = 0; row < k; row++) {
+            for (int col = 0; col + 1 < k; col++) {
+                float gap = cells[row * k + col + 1][0] - cells[row * k + col][2];
+                assertEquals(name + ": gap", SQUARE_MARGIN, gap, EPSILON);
+            }
+        }
+        for (int row = 0; row + 1 < k; row++) {
+            for (int col = 0; col < k; col++) {
+                float gap = cells[(row + 1) * k + col][1] - cells[row * k + col][3];
+                assertEquals(name + ": gap", SQUARE_MARGIN, gap, EPSILON);
+            }
+        }
+    }
+
+    @Test
+    public void mapSquare_scalesTheOutsetWithTheSquare() throws Exception {
+        MenuGeometry geometry = layout(0, 8, CELL, CELL);
+        float[] bounds = new float[4], padded = new float[4], transform = new float[4];
+        for (int i = 0; i < geometry.squareCount; i++) {
+            geometry.transform(i, 0.5f, transform);
+            geometry.mapSquare(i, 0.5f, 0f, bounds);
+            geometry.mapSquare(i, 0.5f, 4f, padded);
+            assertEquals(4f * transform[0], bounds[0] - padded[0], EPSILON);
+            assertEquals(4f * transform[1], bounds[1] - padded[1], EPSILON);
+            assertEquals(4f * transform[0], padded[2] - bounds[2], EPSILON);
+            assertEquals(4f * transform[1], padded[3] - bounds[3], EPSILON);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.devs.squaremenu;
+
+import android.view.animation.Interpolator;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Easing tables of {@link MenuKeyframes}.
+ */
+public class MenuKeyframesTest {
+
+    private static final Interpolator LINEAR = new Interpolator() {
+        @Override
+        public float getInterpolation(float input) {
+            return input;
+        }
+    };
+
+    private static final Interpolator QUADRATIC = new Interpolator() {
+        @Override
+        public float getInterpolation(float input) {
+            return input * input;
+        }
+    };
+
+    @Test
+    public void ease_matchesTheInterpolatorOnEveryFrame() throws Exception {
+        // 200ms at 60Hz, 12 frames
+        MenuKeyframes keyframes = MenuKeyframes.obtain(QUADRATIC, 200, 60f);
+        for (int frame = 0; frame <= 12; frame++) {
+            float progress = frame / 12f;
+            assertEquals(progress * progress, keyframes.ease(progress), 0.0001f);
+        }
+    }
+
+    @Test
+    public void ease_interpolatesBetweenFrames() throws Exception {
+        MenuKeyframes keyframes = MenuKeyframes.obtain(QUADRATIC, 200, 60f);
+        for (float progress = 0f; progress <= 1f; progress += 0.013f) {
+            // The chord of x^2 over a 1/12 step is at most 1/576 above the curve
+            assertEquals(progress * progress, keyframes.ease(progress), 1f / 576 + 0.0001f);
+        }
+        MenuKeyframes linear = MenuKeyframes.obtain(LINEAR, 200, 60f);
+        assertEquals(0.37f, linear.ease(0.37f), 0.0001f);
+    }
+
+    @Test
+    public void ease_clampsOutOfRangeProgress() throws Exception {
+        MenuKeyframes keyframes = MenuKeyframes.obtain(QUADRATIC, 200, 60f);
+        assertEquals(0f, keyframes.ease(-0.5f), 0f);
+        assertEquals(1f, keyframes.ease(1.5f), 0f);
+    }
+
+    @Test
+    public void zeroDuration_stillEasesBetweenTheEnds() throws Exception {
+        MenuKeyframes keyframes = MenuKeyframes.obtain(QUADRATIC, 0, 60f);
+        assertEquals(0f, keyframes.ease(0f), 0f);
+        assertEquals(1f, keyframes.ease(1f), 0f);
+        assertEquals(0.5f, keyframes.ease(0.5f), 0.0001f);
+    }
+
+    @Test
+    public void obtain_sharesTablesOfTheSameCurve() throws Exception {
+        assertSame(MenuKeyframes.obtain(QUADRATIC, 200, 60f), MenuKeyframes.obtain(QUADRATIC, 200, 60f));
+        assertNotSame(MenuKeyframes.obtain(QUADRATIC, 200, 60f), MenuKeyframes.obtain(LINEAR, 200, 60f));
+        assertNotSame(MenuKeyframes.obtain(QUADRATIC, 200, 60f), MenuKeyframes.obtain(QUADRATIC, 200, 120f));
+    }
+}
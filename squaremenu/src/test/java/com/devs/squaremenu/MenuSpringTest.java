@@ -0,0 +1,113 @@
+package com.devs.squaremenu;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Motion and rest detection of {@link MenuSpring}.
+ */
+public class MenuSpringTest {
+
+    private static final float STIFFNESS = 500f;
+
+    /**
+     * Plays frames of frameMs until at rest and returns the time played, or -1.
+     */
+    private static long playToRest(MenuSpring spring, long frameMs, long maxMs) {
+        for (long time = frameMs; time <= maxMs; time += frameMs) {
+            spring.update(time);
+            if(spring.isAtRest()) return time;
+        }
+        return -1;
+    }
+
+    @Test
+    public void open_comesToRestExactlyOnTarget() throws Exception {
+        MenuSpring spring = new MenuSpring(STIFFNESS, 0.7f);
+        spring.reset(0f);
+        spring.start(1f);
+        assertFalse(spring.isAtRest());
+
+        long restTime = playToRest(spring, 16, 2000);
+        assertTrue("rests within a second, took " + restTime, restTime > 0 && restTime < 1000);
+        assertEquals(1f, spring.getPosition(), 0f);
+    }
+
+    @Test
+    public void underdamped_overshootsAndCriticallyDamped_doesNot() throws Exception {
+        assertTrue(peak(0.5f) > 1.01f);
+        assertTrue(peak(1f) <= 1f);
+    }
+
+    private static float peak(float dampingRatio) {
+        MenuSpring spring = new MenuSpring(STIFFNESS, dampingRatio);
+        spring.reset(0f);
+        spring.start(1f);
+        float peak = 0f;
+        for (long time = 4; time <= 2000 && !spring.isAtRest(); time += 4) {
+            spring.update(time);
+            peak = Math.max(peak, spring.getPosition());
+        }
+        return peak;
+    }
+
+    @Test
+    public void reversal_keepsTheVelocity() throws Exception {
+        MenuSpring spring = new MenuSpring(STIFFNESS, 0.7f);
+        spring.reset(0f);
+        spring.start(1f);
+        spring.update(50);
+        float atReversal = spring.getPosition();
+        assertTrue(atReversal > 0f && atReversal < 1f);
+
+        // Still moving towards open for a moment, then back to closed
+        spring.start(0f);
+        spring.update(8);
+        assertTrue(spring.getPosition() > atReversal);
+        assertTrue(playToRest(spring, 16, 2000) > 0);
+        assertEquals(0f, spring.getPosition(), 0f);
+    }
+
+    @Test
+    public void motion_doesNotDependOnTheFrameRate() throws Exception {
+        MenuSpring at60 = new MenuSpring(STIFFNESS, 0.7f);
+        MenuSpring at120 = new MenuSpring(STIFFNESS, 0.7f);
+        at60.reset(0f);
+        at120.reset(0f);
+        at60.start(1f);
+        at120.start(1f);
+        for (long time = 8; time <= 200; time += 8) {
+            if(time % 16 == 0) at60.update(time);
+            at120.update(time);
+        }
+        assertEquals(at120.getPosition(), at60.getPosition(), 0.01f);
+    }
+
+    @Test
+    public void longStall_doesNotSpinForever() throws Exception {
+        MenuSpring spring = new MenuSpring(STIFFNESS, 0.7f);
+        spring.reset(0f);
+        spring.start(1f);
+        long start = System.nanoTime();
+        spring.update(60000);
+        assertTrue(System.nanoTime() - start < 1000000000L);
+        assertTrue(spring.getPosition() > 0f);
+    }
+
+    @Test
+    public void reset_putsTheSpringAtRest() throws Exception {
+        MenuSpring spring = new MenuSpring(STIFFNESS, 0.7f);
+        spring.reset(0f);
+        spring.start(1f);
+        spring.update(50);
+        spring.reset(0.4f);
+        assertTrue(spring.isAtRest());
+        assertEquals(0.4f, spring.getPosition(), 0f);
+    }
+}
@@ -0,0 +1,51 @@
+package com.devs.squaremenu;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Interning of {@link MenuStyle}: menus of one color share their paints, so a screen
+ * full of them holds one set.
+ */
+public class MenuStyleTest {
+
+    private static final int MENUS = 100;
+    // An Integer, the color boxed for each lookup, with or without compressed class pointers
+    private static final int BOXED_KEY_BYTES = 24;
+
+    @Test
+    public void menusOfOneColor_shareOneStyle() throws Exception {
+        MenuStyle red = MenuStyle.obtain(0xFFFF0000);
+        for (int i = 0; i < MENUS; i++) assertSame(red, MenuStyle.obtain(0xFFFF0000));
+        assertNotSame(red, MenuStyle.obtain(0xFF0000FF));
+        assertEquals(0xFF0000FF, MenuStyle.obtain(0xFF0000FF).fabColor);
+    }
+
+    /**
+     * Measures the allocation of a lookup, not the heap a menu retains.
+     */
+    @Test
+    public void obtainForAnInternedColor_allocatesOnlyTheLookupKey() throws Exception {
+        Assume.assumeTrue("needs HotSpot thread allocation counters", Allocations.isSupported());
+        long overhead = Allocations.overhead();
+
+        long start = Allocations.allocatedBytes();
+        MenuStyle.obtain(0xFF123456);
+        long oneStyle = Allocations.allocatedBytes() - start - overhead;
+
+        start = Allocations.allocatedBytes();
+        for (int i = 0; i < MENUS; i++) MenuStyle.obtain(0xFF123456);
+        long sharedByMenus = Allocations.allocatedBytes() - start - overhead;
+
+        // Owning their paints, the menus would take MENUS times the first style
+        assertTrue("one style took " + oneStyle + " bytes", oneStyle > BOXED_KEY_BYTES);
+        assertTrue(MENUS + " more menus took " + sharedByMenus + " bytes", sharedByMenus <= MENUS * BOXED_KEY_BYTES);
+    }
+}
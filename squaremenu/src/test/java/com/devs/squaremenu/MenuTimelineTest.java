@@ -0,0 +1,100 @@
+package com.devs.squaremenu;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Progress of {@link MenuTimeline} runs, reversals included.
+ */
+public class MenuTimelineTest {
+
+    private static final float EPSILON = 0.0001f;
+
+    @Test
+    public void open_movesSquaresAndIconsAtTheirOwnSpeed() throws Exception {
+        MenuTimeline timeline = new MenuTimeline(200, 1000);
+        assertEquals(1000, timeline.start(true));
+        assertTrue(timeline.isOpening());
+
+        assertFalse(timeline.update(100));
+        assertEquals(0.5f, timeline.getProgress(), EPSILON);
+        assertEquals(0.1f, timeline.getIconProgress(), EPSILON);
+
+        assertFalse(timeline.update(200));
+        assertEquals(1f, timeline.getProgress(), EPSILON);
+        assertFalse(timeline.isSettled());
+
+        assertTrue(timeline.update(1000));
+        assertEquals(1f, timeline.getIconProgress(), EPSILON);
+        assertTrue(timeline.isSettled());
+    }
+
+    @Test
+    public void reversal_startsFromWhereTheMenuIs() throws Exception {
+        MenuTimeline timeline = new MenuTimeline(200, 1000);
+        timeline.start(true);
+        timeline.update(100);
+
+        // Half way, so half the closing time, and the icons hide at once
+        assertEquals(100, timeline.start(false));
+        assertFalse(timeline.isOpening());
+        assertEquals(0f, timeline.getIconProgress(), EPSILON);
+        timeline.update(50);
+        assertEquals(0.25f, timeline.getProgress(), EPSILON);
+        assertTrue(timeline.update(100));
+        assertEquals(0f, timeline.getProgress(), EPSILON);
+        assertTrue(timeline.isSettled());
+
+        // And back again from a quarter
+        timeline.jumpTo(0.25f, 0f, false);
+        assertEquals(1000, timeline.start(true));
+        timeline.update(50);
+        assertEquals(0.5f, timeline.getProgress(), EPSILON);
+    }
+
+    @Test
+    public void zeroDuration_completesOnTheFirstUpdate() throws Exception {
+        MenuTimeline timeline = new MenuTimeline(0, 0);
+        assertEquals(0, timeline.start(true));
+        assertTrue(timeline.update(0));
+        assertEquals(1f, timeline.getProgress(), EPSILON);
+        assertEquals(1f, timeline.getIconProgress(), EPSILON);
+        assertTrue(timeline.isSettled());
+    }
+
+    @Test
+    public void startAtTheTarget_hasNothingToPlay() throws Exception {
+        MenuTimeline timeline = new MenuTimeline(200, 1000);
+        assertEquals(0, timeline.start(false));
+        assertTrue(timeline.isSettled());
+
+        timeline.jumpTo(1f, 1f, true);
+        assertEquals(0, timeline.start(true));
+        assertTrue(timeline.isSettled());
+    }
+
+    @Test
+    public void jumpTo_isNotSettledShortOfTheTarget() throws Exception {
+        MenuTimeline timeline = new MenuTimeline(200, 1000);
+        timeline.jumpTo(0.3f, 0f, true);
+        assertFalse(timeline.isSettled());
+        assertEquals(0, timeline.getDuration());
+        assertEquals(0.3f, timeline.getProgress(), EPSILON);
+    }
+
+    @Test
+    public void setDurations_appliesFromTheNextRun() throws Exception {
+        MenuTimeline timeline = new MenuTimeline(200, 1000);
+        timeline.setDurations(400, 0);
+        assertEquals(400, timeline.start(true));
+        timeline.update(100);
+        assertEquals(0.25f, timeline.getProgress(), EPSILON);
+        assertEquals(1f, timeline.getIconProgress(), EPSILON);
+    }
+}
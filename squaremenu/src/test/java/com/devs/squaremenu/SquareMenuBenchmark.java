@@ -0,0 +1,525 @@
+package com.devs.squaremenu;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.drawable.ColorDrawable;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.ViewGroup;
+import android.view.animation.Interpolator;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * JVM benchmarks of the per frame and per touch work of SquareMenu, for every direction
+ * and several FAB sizes and item counts. Each one runs a real SquareMenu in a Robolectric
+ * window: its frames come from a group the benchmark ticks, onDraw draws into a
+ * {@link RecordingCanvas} and touches go through onTouchEvent. Robolectric fakes the
+ * platform graphics, so the times compare versions of the menu code, not devices.
+ * They take a while, run them with -Pbenchmark. Results go through {@link Benchmark},
+ * one JSON line each.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class SquareMenuBenchmark {
+
+    static final String[] DIRECTIONS = {"top_left", "top_right", "bottom_left", "bottom_right"};
+    static final int[] FAB_SIZES = {40, 56, 72};
+    static final int[] ITEM_COUNTS = {3, 8};
+
+    static final long FRAME_NANOS = 16666667L;
+    // Default time the squares take to open or close
+    static final long MOVE_NANOS = 200000000L;
+
+    static final Interpolator ACCELERATE_DECELERATE = new Interpolator() {
+        @Override
+        public float getInterpolation(float input) {
+            return (float) (Math.cos((input + 1) * Math.PI) / 2.0f) + 0.5f;
+        }
+    };
+
+    /**
+     * Group whose members only animate on the frames the benchmark delivers.
+     */
+    static final class ManualGroup extends SquareMenuGroup {
+
+        final ArrayList<MenuAnimatorTest.StubDriver> drivers = new ArrayList<MenuAnimatorTest.StubDriver>();
+
+        @Override
+        FrameDriver newFrameDriver(FrameDriver.Callback callback) {
+            MenuAnimatorTest.StubDriver driver = new MenuAnimatorTest.StubDriver(callback);
+            drivers.add(driver);
+            return driver;
+        }
+
+        boolean isRunning() {
+            for (int i = 0; i < drivers.size(); i++) {
+                if(drivers.get(i).isRunning()) return true;
+            }
+            return false;
+        }
+
+        void frame(long frameTimeNanos) {
+            for (int i = 0; i < drivers.size(); i++) {
+                FrameDriver driver = drivers.get(i);
+                if(driver.isRunning()) driver.callback.onFrame(frameTimeNanos);
+            }
+        }
+    }
+
+    /**
+     * Counts the draw calls and keeps their coordinates, so the benchmark pays for the
+     * calls SquareMenu makes and not for the Robolectric canvas behind them.
+     */
+    static final class RecordingCanvas extends Canvas {
+
+        final float[] coords = new float[1024];
+        int size = 0;
+        int rects = 0, bitmaps = 0, lines = 0;
+
+        void reset() {
+            size = rects = bitmaps = lines = 0;
+        }
+
+        private void add(float a, float b, float c, float d) {
+            if(size + 4 > coords.length) size = 0;
+            coords[size++] = a;
+            coords[size++] = b;
+            coords[size++] = c;
+            coords[size++] = d;
+        }
+
+        @Override
+        public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+            rects++;
+            add(left, top, right, bottom);
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+            bitmaps++;
+            add(left, top, bitmap.getWidth(), bitmap.getHeight());
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+            bitmaps++;
+            add(dst.left, dst.top, dst.right, dst.bottom);
+        }
+
+        @Override
+        public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+            lines++;
+            add(startX, startY, stopX, stopY);
+        }
+
+        @Override
+        public int save() {
+            return 1;
+        }
+
+        @Override
+        public void restore() {
+        }
+
+        @Override
+        public void concat(Matrix matrix) {
+        }
+
+        @Override
+        public void rotate(float degrees) {
+        }
+
+        @Override
+        public void translate(float dx, float dy) {
+        }
+    }
+
+    /**
+     * A SquareMenu that keeps the rects it invalidates.
+     */
+    static final class RecordingMenu extends SquareMenu {
+
+        final RectF dirty = new RectF();
+
+        RecordingMenu(Activity activity, AttributeSet attrs) {
+            super(activity, attrs);
+        }
+
+        @Override
+        public void invalidate(int l, int t, int r, int b) {
+            dirty.union(l, t, r, b);
+            super.invalidate(l, t, r, b);
+        }
+    }
+
+    /**
+     * A real SquareMenu attached to a window, laid out at its measured size, with the
+     * frames, draws and touches of the benchmark.
+     */
+    static final class BenchMenu {
+
+        final RecordingMenu menu;
+        final ManualGroup group = new ManualGroup();
+        final RecordingCanvas canvas = new RecordingCanvas();
+        final int width, height, gridSize, touchSlop;
+        int frames = 0;
+        // Time onDraw took on the last frame
+        long drawNanos = 0;
+        private long frameTime = 0;
+        // Reused, like the framework reuses its input events
+        private final MotionEvent down = MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, 0, 0, 0);
+        private final MotionEvent move = MotionEvent.obtain(0, 0, MotionEvent.ACTION_MOVE, 0, 0, 0);
+        private final MotionEvent up = MotionEvent.obtain(0, 0, MotionEvent.ACTION_UP, 0, 0, 0);
+
+        BenchMenu(int direction, int fabSize, int itemCount) {
+            this(direction, fabSize, itemCount, SquareMenu.RENDER_MODE_SOFTWARE);
+        }
+
+        BenchMenu(int direction, int fabSize, int itemCount, int renderMode) {
+            ShadowLooper.unPauseMainLooper();
+            Activity activity = Robolectric.setupActivity(Activity.class);
+            menu = new RecordingMenu(activity, Robolectric.buildAttributeSet()
+                    .addAttribute(R.attr.squareFabSize, String.valueOf(fabSize))
+                    .addAttribute(R.attr.menuOpenDirection, DIRECTIONS[direction])
+                    .build());
+            menu.setRenderMode(renderMode);
+            // Drawables are rasterized at once, resources would load on a background thread
+            ArrayList<SquareMenuItem> items = new ArrayList<SquareMenuItem>();
+            for (int i = 0; i < itemCount; i++) items.add(new SquareMenuItem(i, new ColorDrawable(Color.WHITE)));
+            menu.setMenuItems(items);
+            group.add(menu);
+            FrameLayout content = new FrameLayout(activity);
+            content.addView(menu, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT,
+                    ViewGroup.LayoutParams.WRAP_CONTENT));
+            activity.setContentView(content);
+            ShadowLooper.idleMainLooper();
+            // From here on only the frames of the benchmark run, no traversal of the window
+            ShadowLooper.pauseMainLooper();
+
+            int spec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+            menu.measure(spec, spec);
+            width = menu.getMeasuredWidth();
+            height = menu.getMeasuredHeight();
+            menu.layout(0, 0, width, height);
+            gridSize = MenuGeometry.gridSizeFor(itemCount);
+            touchSlop = ViewConfiguration.get(activity).getScaledTouchSlop();
+            // A menu out of a window jumps to the end instead of animating
+            assertNotNull(menu.getWindowToken());
+            assertTrue(menu.isShown());
+        }
+
+        /**
+         * Delivers the next display frame and draws it.
+         */
+        void frame() {
+            group.frame(frameTime);
+            frameTime += FRAME_NANOS;
+            frames++;
+            long start = System.nanoTime();
+            draw();
+            drawNanos = System.nanoTime() - start;
+        }
+
+        void draw() {
+            canvas.reset();
+            menu.onDraw(canvas);
+        }
+
+        /**
+         * Delivers frames until the menu comes to rest.
+         */
+        void playToEnd() {
+            while (group.isRunning()) frame();
+        }
+
+        /**
+         * A full open and close, one display frame after the other.
+         */
+        void openClose() {
+            menu.setOpened(true, true);
+            playToEnd();
+            menu.setOpened(false, true);
+            playToEnd();
+        }
+
+        float cellX(int cell) {
+            return (cell % gridSize + 0.5f) * width / gridSize;
+        }
+
+        float cellY(int cell) {
+            return (cell / gridSize + 0.5f) * height / gridSize;
+        }
+
+        /**
+         * A DOWN on the center of the cell, a MOVE and an UP the given distance off it.
+         */
+        void tap(int cell, float drag) {
+            float x = cellX(cell), y = cellY(cell);
+            down.setLocation(x, y);
+            menu.onTouchEvent(down);
+            move.setLocation(x + drag, y + drag);
+            menu.onTouchEvent(move);
+            up.setLocation(x + drag, y + drag);
+            menu.onTouchEvent(up);
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        // Opt in, these take a while and only record numbers
+        assumeTrue(Boolean.getBoolean("squaremenu.benchmark"));
+    }
+
+    @Test
+    public void draw() throws Exception {
+        for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+            for (int fabSize : FAB_SIZES) {
+                for (int itemCount : ITEM_COUNTS) {
+                    final BenchMenu bench = new BenchMenu(direction, fabSize, itemCount);
+                    // Midway through the open, when the squares, the plus and the icons are all drawn
+                    bench.menu.setOpened(true, true);
+                    for (int i = 0; i < 6; i++) bench.frame();
+                    assertTrue(bench.group.isRunning());
+                    int squares = bench.gridSize * bench.gridSize;
+                    assertEquals(squares, bench.canvas.rects);
+                    assertEquals(2, bench.canvas.lines);
+                    assertTrue(bench.canvas.bitmaps >= itemCount);
+
+                    Benchmark.measure("draw", new Benchmark.Op() {
+                        @Override
+                        void run() {
+                            bench.draw();
+                        }
+                    }, "direction", DIRECTIONS[direction], "fabSize", fabSize, "items", itemCount);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void touch() throws Exception {
+        for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+            for (int fabSize : FAB_SIZES) {
+                for (int itemCount : ITEM_COUNTS) {
+                    final BenchMenu bench = new BenchMenu(direction, fabSize, itemCount);
+                    final int cells = bench.gridSize * bench.gridSize;
+                    // Exactly one cell is the FAB, and dragging off it is no tap
+                    int fabs = 0, fabCell = -1;
+                    for (int cell = 0; cell < cells; cell++) {
+                        bench.tap(cell, 0);
+                        if(!bench.menu.isOpened()) continue;
+                        fabs++;
+                        fabCell = cell;
+                        bench.menu.setOpened(false, false);
+                    }
+                    assertEquals(1, fabs);
+                    bench.tap(fabCell, 3 * bench.touchSlop);
+                    assertFalse(bench.menu.isOpened());
+
+                    // Every cell in turn, a FAB tap retargets the animation it started last time
+                    Benchmark.measure("touch", new Benchmark.Op() {
+                        int cell = 0;
+
+                        @Override
+                        void run() {
+                            bench.tap(cell, 3f);
+                            cell = (cell + 1) % cells;
+                        }
+                    }, "direction", DIRECTIONS[direction], "fabSize", fabSize, "items", itemCount);
+                }
+            }
+        }
+    }
+
+    /**
+     * The rect the menu invalidates and the onDraw time of every frame of an open and a
+     * close, split in two phases: frames while the squares move, the one landing them
+     * included, and frames that only fade the icons in. The squares spread over the whole
+     * view as they move, so the first phase invalidates all of it and gains nothing over
+     * a full invalidate; only the icon fade invalidates less. In software and hardware
+     * onDraw draws everything whatever the rect, so the draw time is the same in both.
+     */
+    @Test
+    public void dirtyArea() throws Exception {
+        String[] phases = {"squares", "icons"};
+        for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+            for (int fabSize : FAB_SIZES) {
+                for (int itemCount : ITEM_COUNTS) {
+                    final BenchMenu bench = new BenchMenu(direction, fabSize, itemCount);
+                    double viewArea = (double) bench.width * bench.height;
+                    int[] frames = new int[2];
+                    double[] sum = new double[2], max = new double[2];
+                    long[] drawNanos = new long[2];
+                    for (int run = 0; run < 2; run++) {
+                        bench.menu.setOpened(run == 0, true);
+                        long elapsed = 0;
+                        while (bench.group.isRunning()) {
+                            bench.menu.dirty.setEmpty();
+                            bench.frame();
+                            int phase = elapsed <= MOVE_NANOS + FRAME_NANOS / 2 ? 0 : 1;
+                            elapsed += FRAME_NANOS;
+                            RectF dirty = bench.menu.dirty;
+                            if(!dirty.intersect(0, 0, bench.width, bench.height)) dirty.setEmpty();
+                            double fraction = dirty.width() * dirty.height() / viewArea;
+                            frames[phase]++;
+                            sum[phase] += fraction;
+                            max[phase] = Math.max(max[phase], fraction);
+                            drawNanos[phase] += bench.drawNanos;
+                        }
+                    }
+                    assertTrue(frames[0] > 0 && frames[1] > 0);
+                    for (int phase = 0; phase < phases.length; phase++) {
+                        Benchmark.record("dirtyArea", "direction", DIRECTIONS[direction], "fabSize", fabSize,
+                                "items", itemCount, "phase", phases[phase], "frames", frames[phase],
+                                "meanDirtyAreaFraction", sum[phase] / frames[phase],
+                                "maxDirtyAreaFraction", max[phase],
+                                "meanDrawNs", drawNanos[phase] / frames[phase]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens and closes a menu under each motion policy through its public setters, so the
+     * frames counted are the ones the policy really gives the animator.
+     */
+    @Test
+    public void motionPolicy() throws Exception {
+        String[] policies = {"full", "full_spring", "reduced", "none"};
+        int[] motions = {SquareMenu.MOTION_FULL, SquareMenu.MOTION_FULL, SquareMenu.MOTION_REDUCED, SquareMenu.MOTION_NONE};
+        for (int itemCount : ITEM_COUNTS) {
+            int[] openFrames = new int[policies.length];
+            for (int policy = 0; policy < policies.length; policy++) {
+                final BenchMenu bench = new BenchMenu(0, 56, itemCount);
+                bench.menu.setMotionPolicy(motions[policy]);
+                bench.menu.setSpringAnimation(policy == 1, 500f, 0.7f);
+                bench.frames = 0;
+                bench.menu.setOpened(true, true);
+                bench.playToEnd();
+                openFrames[policy] = bench.frames;
+                assertTrue(bench.menu.isOpened());
+                bench.frames = 0;
+                bench.menu.setOpened(false, true);
+                bench.playToEnd();
+                int closeFrames = bench.frames;
+                assertFalse(bench.group.isRunning());
+
+                Benchmark.measure("motionToggle", new Benchmark.Op() {
+                    @Override
+                    void run() {
+                        bench.menu.setOpened(!bench.menu.isOpened(), true);
+                        bench.playToEnd();
+                    }
+                }, "policy", policies[policy], "fabSize", 56, "items", itemCount,
+                        "openFrames", openFrames[policy], "closeFrames", closeFrames);
+            }
+            // No motion lands in one frame at most, reduced only crossfades the icons
+            assertTrue(openFrames[3] <= 1);
+            assertTrue(openFrames[2] > openFrames[3]);
+            assertTrue(openFrames[0] > openFrames[2]);
+            assertTrue(openFrames[1] > 1);
+        }
+    }
+
+    @Test
+    public void animatorFrame() throws Exception {
+        for (final boolean spring : new boolean[]{false, true}) {
+            final MenuAnimatorTest.FrameSink sink = new MenuAnimatorTest.FrameSink();
+            final MenuAnimator animator = new MenuAnimator(sink, 200, 1000, ACCELERATE_DECELERATE, 500f, 0.7f);
+            final MenuAnimatorTest.StubDriver driver = new MenuAnimatorTest.StubDriver(animator);
+            animator.setFrameDriver(driver);
+            animator.setSpringEnabled(spring);
+            // One frame of the clock and its update, no drawing; a settled run turns around
+            Benchmark.measure("animatorFrame", new Benchmark.Op() {
+                boolean open = false;
+                long frameTime = 0;
+
+                @Override
+                void run() {
+                    if(!driver.isRunning()) {
+                        open = !open;
+                        animator.animateTo(open);
+                    }
+                    animator.onFrame(frameTime);
+                    frameTime += FRAME_NANOS;
+                }
+            }, "clock", spring ? "spring" : "timeline", "fabSize", 56, "items", 8);
+        }
+    }
+
+    @Test
+    public void animatorColdStart() throws Exception {
+        final MenuAnimatorTest.FrameSink sink = new MenuAnimatorTest.FrameSink();
+        // A new animator and curve every time, so the first run bakes its easing table
+        Benchmark.measure("animatorColdStart", new Benchmark.Op() {
+            @Override
+            void run() {
+                Interpolator interpolator = new Interpolator() {
+                    @Override
+                    public float getInterpolation(float input) {
+                        return ACCELERATE_DECELERATE.getInterpolation(input);
+                    }
+                };
+                MenuAnimator animator = new MenuAnimator(sink, 200, 1000, interpolator, 500f, 0.7f);
+                MenuAnimatorTest.StubDriver driver = new MenuAnimatorTest.StubDriver(animator);
+                animator.setFrameDriver(driver);
+                animator.animateTo(true);
+                animator.onFrame(0);
+                animator.onFrame(FRAME_NANOS);
+            }
+        }, "fabSize", 56, "items", 8);
+    }
+
+    @Test
+    public void openCloseCycle() throws Exception {
+        for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+            for (int fabSize : FAB_SIZES) {
+                for (int itemCount : ITEM_COUNTS) {
+                    final BenchMenu bench = new BenchMenu(direction, fabSize, itemCount);
+                    bench.frames = 0;
+                    bench.openClose();
+                    int framesPerCycle = bench.frames;
+                    // The squares move for 200ms each way
+                    assertTrue(framesPerCycle >= 2 * 12);
+                    assertFalse(bench.menu.isOpened());
+                    assertFalse(bench.group.isRunning());
+
+                    Benchmark.measure("openCloseCycle", new Benchmark.Op() {
+                        @Override
+                        void run() {
+                            bench.openClose();
+                        }
+                    }, "direction", DIRECTIONS[direction], "fabSize", fabSize, "items", itemCount,
+                            "framesPerOp", framesPerCycle);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.devs.squaremenu;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Deven
+ *
+ *         Licensed under the Apache License 2.0 license see:
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Histograms and per animation counts of {@link SquareMenuMetrics}.
+ */
+public class SquareMenuMetricsTest {
+
+    private static void drawFrames(SquareMenuMetrics metrics, int count, long nanos) {
+        for (int i = 0; i < count; i++) metrics.onFrameDrawn(1000000L, 1000000L + nanos);
+    }
+
+    @Test
+    public void percentiles_reportTheBucketUpperBound() throws Exception {
+        SquareMenuMetrics metrics = new SquareMenuMetrics();
+        // 3us lands in [2, 4)us and 20us in [16, 32)us
+        drawFrames(metrics, 90, 3000);
+        drawFrames(metrics, 10, 20000);
+
+        SquareMenuMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(4000, snapshot.getDrawTimeNanos(50));
+        assertEquals(4000, snapshot.getDrawTimeNanos(90));
+        assertEquals(32000, snapshot.getDrawTimeNanos(91));
+        assertEquals(32000, snapshot.getDrawTimeNanos(100));
+    }
+
+    @Test
+    public void percentiles_ofNothingAreZero() throws Exception {
+        SquareMenuMetrics.Snapshot snapshot = new SquareMenuMetrics().snapshot();
+        assertEquals(0, snapshot.getDrawTimeNanos(50));
+        assertEquals(0, snapshot.getTouchToFirstFrameNanos(99));
+    }
+
+    @Test
+    public void percentiles_putSubMicrosecondAndHugeFramesInTheEndBuckets() throws Exception {
+        SquareMenuMetrics metrics = new SquareMenuMetrics();
+        drawFrames(metrics, 1, 10);
+        assertEquals(2000, metrics.snapshot().getDrawTimeNanos(100));
+        drawFrames(metrics, 1, Long.MAX_VALUE / 2);
+        assertEquals((2L << (SquareMenuMetrics.BUCKET_COUNT - 1)) * 1000, metrics.snapshot().getDrawTimeNanos(100));
+    }
+
+    @Test
+    public void animation_countsRenderedAndDroppedFrames() throws Exception {
+        SquareMenuMetrics metrics = new SquareMenuMetrics();
+        final int[] reported = new int[3];
+        metrics.setListener(new SquareMenuMetrics.Listener() {
+            @Override
+            public void onAnimationMetrics(int framesRendered, int framesDropped, long touchToFirstFrameNanos) {
+                reported[0] = framesRendered;
+                reported[1] = framesDropped;
+                reported[2] = (int) touchToFirstFrameNanos;
+            }
+        });
+        metrics.setFrameIntervalNanos(1000000000L / 60);
+
+        metrics.onTouch(0);
+        // 200ms at 60Hz is 12 frames
+        metrics.onAnimationStart(200);
+        metrics.onFrameDrawn(4000000L, 5000000L);
+        drawFrames(metrics, 5, 1000);
+        metrics.onAnimationEnd();
+
+        assertEquals(6, reported[0]);
+        assertEquals(6, reported[1]);
+        assertEquals(5000000, reported[2]);
+        SquareMenuMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(1, snapshot.getAnimationCount());
+        assertEquals(6, snapshot.getFramesRendered());
+        assertEquals(6, snapshot.getFramesDropped());
+        // 5ms lands in [4096, 8192)us
+        assertEquals(8192000, snapshot.getTouchToFirstFrameNanos(50));
+    }
+
+    @Test
+    public void dropped_areCountedAgainstTheSquareMotionOnly() throws Exception {
+        SquareMenuMetrics metrics = new SquareMenuMetrics();
+        long frame = 1000000000L / 60;
+        metrics.setFrameIntervalNanos(frame);
+
+        // Every other frame while the squares move for 200ms, then the 1000ms icon fade
+        // at full rate: plenty of frames in all, but 6 of the 12 move frames are missing
+        metrics.onAnimationStart(200);
+        long time = 0;
+        for (int i = 0; i < 6; i++, time += 2 * frame) metrics.onFrameDrawn(time, time + 1000);
+        for (time = 200000000L; time < 1000000000L; time += frame) metrics.onFrameDrawn(time, time + 1000);
+        metrics.onAnimationEnd();
+
+        SquareMenuMetrics.Snapshot snapshot = metrics.snapshot();
+        assertTrue(snapshot.getFramesRendered() > 12);
+        assertEquals(6, snapshot.getFramesDropped());
+    }
+
+    @Test
+    public void animation_withoutTouch_hasNoLatency() throws Exception {
+        SquareMenuMetrics metrics = new SquareMenuMetrics();
+        final long[] latency = {0};
+        metrics.setListener(new SquareMenuMetrics.Listener() {
+            @Override
+            public void onAnimationMetrics(int framesRendered, int framesDropped, long touchToFirstFrameNanos) {
+                latency[0] = touchToFirstFrameNanos;
+            }
+        });
+        // A touch that started nothing is forgotten by the next frame
+        metrics.onTouch(0);
+        drawFrames(metrics, 1, 1000);
+        metrics.onAnimationStart(0);
+        drawFrames(metrics, 3, 1000);
+        metrics.onAnimationEnd();
+        assertEquals(-1, latency[0]);
+    }
+
+    @Test
+    public void reset_clearsEverything() throws Exception {
+        SquareMenuMetrics metrics = new SquareMenuMetrics();
+        metrics.onAnimationStart(100);
+        drawFrames(metrics, 3, 1000);
+        metrics.onAnimationEnd();
+        metrics.reset();
+        SquareMenuMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(0, snapshot.getAnimationCount());
+        assertEquals(0, snapshot.getFramesRendered());
+        assertEquals(0, snapshot.getDrawTimeNanos(100));
+    }
+}